@@ -0,0 +1,49 @@
+package com.tdd.demo.TDD_Spring_Boot.benchmark;
+
+import com.tdd.demo.TDD_Spring_Boot.TddSpringBootApplication;
+import com.tdd.demo.TDD_Spring_Boot.dto.BatchItemResult;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostBatchService;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Boots the application without a web server against a private in-memory H2 database, so every
+ * benchmark trial starts from the same state.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {}
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "logging.level.root=WARN"));
+        all.addAll(List.of(properties));
+        return new SpringApplicationBuilder(TddSpringBootApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(all.toArray(String[]::new))
+                .run();
+    }
+
+    static List<Integer> seed(ConfigurableApplicationContext context, int count) {
+        List<BatchItemResult> results = context.getBean(PostBatchService.class).createPosts(IntStream.range(0, count)
+                .mapToObj(i -> new Post(null, "Post " + i, "Description of benchmark post number " + i))
+                .iterator());
+        return results.stream().map(BatchItemResult::id).toList();
+    }
+
+    static List<Post> posts(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Post(i + 1, "Post " + i, "Description of benchmark post number " + i))
+                .toList();
+    }
+}
@@ -0,0 +1,61 @@
+package com.tdd.demo.TDD_Spring_Boot.benchmark;
+
+import com.tdd.demo.TDD_Spring_Boot.exception.GlobalExceptionHandler;
+import com.tdd.demo.TDD_Spring_Boot.exception.PostNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A lookup miss turned into its 404 response, thrown from {@code stackDepth} frames down the way a
+ * request thread throws it. {@code stackTraceException} is how misses used to be handled: a full stack
+ * trace, a concatenated message and a body copied from it. {@code postNotFoundException} is the
+ * current path. Run with {@code -Djmh.args="PostNotFound -prof gc"} and compare
+ * {@code gc.alloc.rate.norm}, the bytes allocated per miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PostNotFoundBenchmark {
+
+    @Param({"20", "150"})
+    private int stackDepth;
+
+    private final GlobalExceptionHandler exceptionHandler = new GlobalExceptionHandler();
+    private int nextId;
+
+    @Benchmark
+    public ResponseEntity<String> stackTraceException() {
+        try {
+            throwFrom(stackDepth, true, ++nextId);
+            throw new AssertionError("Nothing thrown");
+        } catch (RuntimeException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> postNotFoundException() {
+        try {
+            throwFrom(stackDepth, false, ++nextId);
+            throw new AssertionError("Nothing thrown");
+        } catch (PostNotFoundException ex) {
+            return exceptionHandler.handleNotFound(ex);
+        }
+    }
+
+    private static void throwFrom(int depth, boolean withStackTrace, int id) {
+        if (depth > 0) {
+            throwFrom(depth - 1, withStackTrace, id);
+        } else if (withStackTrace) {
+            throw new RuntimeException("Post with id " + id + " not found!");
+        } else {
+            throw new PostNotFoundException(id);
+        }
+    }
+}
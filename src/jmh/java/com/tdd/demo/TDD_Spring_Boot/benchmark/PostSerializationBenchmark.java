@@ -0,0 +1,77 @@
+package com.tdd.demo.TDD_Spring_Boot.benchmark;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Jackson serialization of {@code GET /api/v1/posts} pages, isolated from the database, in each wire
+ * format the endpoint negotiates. Each benchmark also reports its payload size as a secondary
+ * {@code bytes} result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PostSerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int listSize;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectWriter writer;
+    private List<Post> posts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> JsonMapper.builder().build();
+            case "cbor" -> CBORMapper.builder().build();
+            case "smile" -> SmileMapper.builder().build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Post.class));
+        posts = BenchmarkContext.posts(listSize);
+    }
+
+    /** Size of the last payload written; set rather than summed, so the reported value is bytes per page. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long bytes;
+    }
+
+    @Benchmark
+    public byte[] serializePostList(PayloadSize size) {
+        byte[] payload = writer.writeValueAsBytes(posts);
+        size.bytes = payload.length;
+        return payload;
+    }
+
+    @Benchmark
+    public byte[] serializePostListGzipped(PayloadSize size) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            writer.writeValue(gzip, posts);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        size.bytes = bytes.size();
+        return bytes.toByteArray();
+    }
+}
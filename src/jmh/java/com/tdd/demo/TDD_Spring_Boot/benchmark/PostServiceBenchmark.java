@@ -0,0 +1,69 @@
+package com.tdd.demo.TDD_Spring_Boot.benchmark;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CRUD hot paths of {@link PostService} against the embedded H2 database. {@code cacheType=none}
+ * measures the database path, {@code caffeine} what production sees for repeated reads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PostServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tableSize;
+
+    @Param({"caffeine", "none"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private List<Integer> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("spring.cache.type=" + cacheType);
+        postService = context.getBean(PostService.class);
+        ids = BenchmarkContext.seed(context, tableSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Post getPostById() {
+        return postService.getPostById(randomId());
+    }
+
+    @Benchmark
+    public List<Post> getAllPosts() {
+        return postService.getAllPosts();
+    }
+
+    @Benchmark
+    public Post savePost() {
+        return postService.savePost(new Post(null, "Benchmark Post", "Written by PostServiceBenchmark"));
+    }
+
+    @Benchmark
+    public Post updatePost() {
+        return postService.updatePost(randomId(), new Post(null, "Updated Post", "Updated by PostServiceBenchmark"));
+    }
+
+    private int randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.tdd.demo.TDD_Spring_Boot.benchmark;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.snapshot.PostSnapshot;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Answering a post request in snapshot mode against rendering a post held on the heap, as a cache hit
+ * does. {@code snapshotJson} copies the stored JSON out of the mapped file, {@code renderJson} serializes
+ * the post, and {@code snapshotPost} decodes a {@link Post} from the file. {@code writeAllJsonLines} is
+ * the NDJSON export of all posts. Run with {@code -Djmh.args="PostSnapshot -prof gc"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PostSnapshotBenchmark {
+
+    private static final int POSTS = 100_000;
+
+    private final ObjectWriter jsonWriter = JsonMapper.builder().build().writerFor(Post.class);
+    private final OutputStream discard = OutputStream.nullOutputStream();
+    private List<Post> posts;
+    private PostSnapshot snapshot;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        Instant now = Instant.parse("2024-03-01T10:15:30.123456Z");
+        posts = new ArrayList<>(POSTS);
+        IntStream.rangeClosed(1, POSTS).forEach(id -> {
+            Post post = new Post(id, "Post " + id, "Description of post " + id + " ".repeat(200));
+            post.setVersion(1L);
+            post.setCreatedAt(now);
+            post.setUpdatedAt(now);
+            posts.add(post);
+        });
+        file = Files.createTempFile("posts-", ".snapshot");
+        PostSnapshot.write(file, posts::forEach, jsonWriter);
+        snapshot = PostSnapshot.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public byte[] renderJson() {
+        return jsonWriter.writeValueAsBytes(posts.get(ThreadLocalRandom.current().nextInt(POSTS)));
+    }
+
+    @Benchmark
+    public PostSnapshot.Json snapshotJson() {
+        return snapshot.json(ThreadLocalRandom.current().nextInt(POSTS) + 1);
+    }
+
+    @Benchmark
+    public Post snapshotPost() {
+        return snapshot.find(ThreadLocalRandom.current().nextInt(POSTS) + 1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void writeAllJsonLines() throws IOException {
+        snapshot.writeJsonLines(discard);
+    }
+}
@@ -0,0 +1,82 @@
+package com.tdd.demo.TDD_Spring_Boot.loadtest;
+
+import com.tdd.demo.TDD_Spring_Boot.TddSpringBootApplication;
+import com.tdd.demo.TDD_Spring_Boot.dto.BatchItemResult;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostBatchService;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Latency and throughput regression check of the REST API. Boots the application with its web server on
+ * a random port against a private in-memory H2 database, seeds it, drives a read/write mix at a constant
+ * arrival rate through a warm-up and a measured phase, and compares the measured phase with a stored
+ * baseline. The process exits with status 1 when a threshold is broken, which fails the build.
+ * <p>
+ * Run with {@code mvn -Pload-test verify -DskipTests [-Dloadtest.args="rate=800 duration=60"]}; settings
+ * are listed in {@link LoadTestSettings}. Results are written to {@code target/loadtest-result.properties};
+ * {@code updateBaseline=true} records them as the new baseline. Baselines only compare runs on the same
+ * kind of machine, so none is committed: the first run on a machine, finding no baseline, records its own
+ * results as the baseline and passes. The thresholds are the defaults in {@link LoadTestSettings}.
+ */
+public final class LoadTest {
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+        LoadTestReport report;
+        try (ConfigurableApplicationContext context = start()) {
+            List<Integer> ids = seed(context, settings.tableSize());
+            URI baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(baseUri, ids, settings.maxInFlight());
+
+            System.out.printf("Warming up at %d req/s for %s%n", settings.rate(), settings.warmup());
+            generator.run(settings.rate(), settings.warmup());
+            System.out.printf("Measuring at %d req/s for %s%n", settings.rate(), settings.duration());
+            report = generator.run(settings.rate(), settings.duration());
+        }
+
+        report.print(System.out);
+        report.write(Path.of("target", "loadtest-result.properties"));
+        if (settings.updateBaseline() || Files.notExists(settings.baseline())) {
+            report.write(settings.baseline());
+            System.out.println((settings.updateBaseline() ? "Baseline updated: " : "No baseline yet, recorded: ")
+                    + settings.baseline());
+            return;
+        }
+
+        List<String> violations = report.compareWith(settings.baseline(), settings);
+        if (!violations.isEmpty()) {
+            System.out.println("Regressed against " + settings.baseline() + ":");
+            violations.forEach(violation -> System.out.println("  " + violation));
+            System.exit(1);
+        }
+        System.out.println("Within the thresholds of " + settings.baseline());
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(TddSpringBootApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static List<Integer> seed(ConfigurableApplicationContext context, int count) {
+        List<BatchItemResult> results = context.getBean(PostBatchService.class).createPosts(IntStream.range(0, count)
+                .mapToObj(i -> new Post(null, "Post " + i, "Description of load test post number " + i))
+                .iterator());
+        return results.stream().map(BatchItemResult::id).toList();
+    }
+}
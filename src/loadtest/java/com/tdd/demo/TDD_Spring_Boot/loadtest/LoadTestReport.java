@@ -0,0 +1,145 @@
+package com.tdd.demo.TDD_Spring_Boot.loadtest;
+
+import com.tdd.demo.TDD_Spring_Boot.loadtest.OpenModelLoadGenerator.Operation;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Latency percentiles and throughput of one measured run, and how they compare with a baseline. The
+ * baseline is a properties file holding the offered {@code rate}, the {@code throughput} in successful
+ * requests per second and {@code p99.<operation>} in milliseconds, the same format this report writes.
+ */
+final class LoadTestReport {
+
+    private static final String ALL = "all";
+
+    private final int rate;
+    private final Duration elapsed;
+    private final Map<Operation, Histogram> latencies;
+    private final Map<Operation, Long> failures;
+    private final long dropped;
+    private final Histogram overall;
+
+    /**
+     * @param latencies latency of every request sent, failed or not, in microseconds
+     * @param failures  requests per operation that were answered with an error or not at all
+     * @param dropped   requests never sent because too many were outstanding
+     */
+    LoadTestReport(int rate, Duration elapsed, Map<Operation, Histogram> latencies, Map<Operation, Long> failures,
+                   long dropped) {
+        this.rate = rate;
+        this.elapsed = elapsed;
+        this.latencies = latencies;
+        this.failures = failures;
+        this.dropped = dropped;
+        this.overall = new Histogram(3);
+        latencies.values().forEach(overall::add);
+    }
+
+    long requests() {
+        return overall.getTotalCount() + dropped;
+    }
+
+    long failures() {
+        return failures.values().stream().mapToLong(Long::longValue).sum() + dropped;
+    }
+
+    double throughput() {
+        return (requests() - failures()) / (elapsed.toNanos() / 1e9);
+    }
+
+    void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%nOffered %d req/s for %.1f s: %.1f successful req/s, %d of %d requests failed, %d not sent%n",
+                rate, elapsed.toNanos() / 1e9, throughput(), failures(), requests(), dropped);
+        out.printf(Locale.ROOT, "%-12s %9s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        latencies.forEach((operation, histogram) -> printRow(out, key(operation), histogram, failures.get(operation)));
+        printRow(out, ALL, overall, failures());
+    }
+
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("rate", Integer.toString(rate));
+        properties.setProperty("throughput", format(throughput()));
+        properties.setProperty("p99." + ALL, format(p99(overall)));
+        latencies.forEach((operation, histogram) -> properties.setProperty("p99." + key(operation), format(p99(histogram))));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, "Load test at " + rate + " req/s for " + Math.round(elapsed.toMillis() / 1000.0) + " s");
+        }
+    }
+
+    /**
+     * @return a description of every threshold this run broke; empty if it passed
+     */
+    List<String> compareWith(Path baselineFile, LoadTestSettings settings) throws IOException {
+        Properties baseline = new Properties();
+        try (Reader reader = Files.newBufferedReader(baselineFile)) {
+            baseline.load(reader);
+        }
+
+        List<String> violations = new ArrayList<>();
+        int baselineRate = Integer.parseInt(baseline.getProperty("rate"));
+        if (baselineRate != rate) {
+            violations.add("the baseline was measured at " + baselineRate + " req/s, not " + rate);
+            return violations;
+        }
+        double errorRate = (double) failures() / Math.max(1, requests());
+        if (errorRate > settings.maxErrorRate()) {
+            violations.add(String.format(Locale.ROOT, "error rate %.4f exceeds %.4f", errorRate, settings.maxErrorRate()));
+        }
+        double minThroughput = Double.parseDouble(baseline.getProperty("throughput")) * (1 - settings.maxThroughputRegression());
+        if (throughput() < minThroughput) {
+            violations.add(String.format(Locale.ROOT, "throughput %.1f req/s is below %.1f req/s", throughput(), minThroughput));
+        }
+        checkP99(violations, ALL, overall, baseline, settings);
+        latencies.forEach((operation, histogram) -> checkP99(violations, key(operation), histogram, baseline, settings));
+        return violations;
+    }
+
+    private static void checkP99(List<String> violations, String name, Histogram histogram, Properties baseline,
+                                 LoadTestSettings settings) {
+        String expected = baseline.getProperty("p99." + name);
+        if (expected == null || histogram.getTotalCount() == 0) {
+            return;
+        }
+        double maxP99 = Double.parseDouble(expected) * (1 + settings.maxP99Regression());
+        if (p99(histogram) > maxP99) {
+            violations.add(String.format(Locale.ROOT, "p99 of %s is %.2f ms, above %.2f ms", name, p99(histogram), maxP99));
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram, long failures) {
+        out.printf(Locale.ROOT, "%-12s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), failures,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double p99(Histogram histogram) {
+        return millis(histogram, 99);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static String key(Operation operation) {
+        return operation.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
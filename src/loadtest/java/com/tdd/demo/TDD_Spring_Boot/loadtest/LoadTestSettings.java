@@ -0,0 +1,63 @@
+package com.tdd.demo.TDD_Spring_Boot.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parameters of a load test run, given on the command line as {@code key=value} pairs.
+ *
+ * @param rate                    requests started per second, independent of how fast they complete
+ * @param warmup                  how long to drive load before measuring, to get past JIT and cache warm-up
+ * @param duration                how long to measure
+ * @param tableSize               posts in the database before the run
+ * @param maxInFlight             requests outstanding at once; arrivals beyond this count as errors instead of queueing
+ * @param baseline                properties file the run is compared with; machine-specific and not committed
+ * @param maxP99Regression        how much worse than the baseline any p99 may get, as a fraction
+ * @param maxThroughputRegression how much lower than the baseline the throughput may get, as a fraction
+ * @param maxErrorRate            fraction of requests that may fail
+ * @param updateBaseline          write this run's results to the baseline instead of comparing with it
+ */
+record LoadTestSettings(int rate,
+                        Duration warmup,
+                        Duration duration,
+                        int tableSize,
+                        int maxInFlight,
+                        Path baseline,
+                        double maxP99Regression,
+                        double maxThroughputRegression,
+                        double maxErrorRate,
+                        boolean updateBaseline) {
+
+    static LoadTestSettings parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        LoadTestSettings settings = new LoadTestSettings(
+                Integer.parseInt(take(values, "rate", "100")),
+                Duration.ofSeconds(Long.parseLong(take(values, "warmup", "15"))),
+                Duration.ofSeconds(Long.parseLong(take(values, "duration", "30"))),
+                Integer.parseInt(take(values, "tableSize", "10000")),
+                Integer.parseInt(take(values, "maxInFlight", "1000")),
+                Path.of(take(values, "baseline", "loadtest-baseline.properties")),
+                Double.parseDouble(take(values, "maxP99Regression", "0.5")),
+                Double.parseDouble(take(values, "maxThroughputRegression", "0.05")),
+                Double.parseDouble(take(values, "maxErrorRate", "0.001")),
+                Boolean.parseBoolean(take(values, "updateBaseline", "false")));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown settings " + values.keySet());
+        }
+        return settings;
+    }
+
+    private static String take(Map<String, String> values, String key, String defaultValue) {
+        String value = values.remove(key);
+        return value != null ? value : defaultValue;
+    }
+}
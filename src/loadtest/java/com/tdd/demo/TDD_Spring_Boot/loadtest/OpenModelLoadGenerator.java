@@ -0,0 +1,166 @@
+package com.tdd.demo.TDD_Spring_Boot.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: requests are started on a fixed schedule whether or not earlier ones have finished,
+ * the way independent users arrive, so a slow server faces a growing backlog instead of a politely
+ * waiting client. Latency is measured from when a request was due to start, not from when it was sent,
+ * so a stalled generator or a full connection pool shows up in the percentiles instead of being hidden
+ * (coordinated omission).
+ */
+final class OpenModelLoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration DRAIN_TIMEOUT = REQUEST_TIMEOUT.multipliedBy(2);
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final List<Integer> ids;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+
+    OpenModelLoadGenerator(URI baseUri, List<Integer> ids, int maxInFlight) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.baseUri = baseUri;
+        this.ids = ids;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Starts {@code rate} requests per second for {@code duration}, then waits for the last ones to finish.
+     */
+    LoadTestReport run(int rate, Duration duration) throws InterruptedException {
+        recorders.values().forEach(Recorder::reset);
+        failures.values().forEach(LongAdder::reset);
+        dropped.reset();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long requests = duration.toSeconds() * rate;
+        long start = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long due = start + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(Operation.pick(random), due);
+        }
+        if (!inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Requests still outstanding " + DRAIN_TIMEOUT + " after the run");
+        }
+        inFlight.release(maxInFlight);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, Long> failed = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, recorders.get(operation).getIntervalHistogram());
+            failed.put(operation, failures.get(operation).sum());
+        }
+        return new LoadTestReport(rate, elapsed, latencies, failed, dropped.sum());
+    }
+
+    private void send(Operation operation, long dueNanos) {
+        if (!inFlight.tryAcquire()) {
+            // Queueing here would slow the arrivals down to what the server manages, which is the closed model.
+            dropped.increment();
+            return;
+        }
+        int id = ids.get(random.nextInt(ids.size()));
+        HttpRequest request = operation.request(baseUri, id).timeout(REQUEST_TIMEOUT).build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueNanos));
+                    if (failure != null || response.statusCode() >= 400) {
+                        failures.get(operation).increment();
+                    }
+                    inFlight.release();
+                });
+    }
+
+    /**
+     * The request mix, weighted like a read-mostly API.
+     */
+    enum Operation {
+        GET_POST(70) {
+            @Override
+            HttpRequest.Builder request(URI baseUri, int id) {
+                return HttpRequest.newBuilder(baseUri.resolve("/api/v1/post/" + id)).GET();
+            }
+        },
+        LIST_POSTS(15) {
+            @Override
+            HttpRequest.Builder request(URI baseUri, int id) {
+                return HttpRequest.newBuilder(baseUri.resolve("/api/v1/posts?limit=20")).GET();
+            }
+        },
+        CREATE_POST(10) {
+            @Override
+            HttpRequest.Builder request(URI baseUri, int id) {
+                return HttpRequest.newBuilder(baseUri.resolve("/api/v1/post"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {"title":"Load test post","description":"Created by the load test"}"""));
+            }
+        },
+        UPDATE_POST(5) {
+            @Override
+            HttpRequest.Builder request(URI baseUri, int id) {
+                return HttpRequest.newBuilder(baseUri.resolve("/api/v1/post/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("""
+                                {"title":"Load test update","description":"Updated by the load test"}"""));
+            }
+        };
+
+        private static final int TOTAL_WEIGHT = 100;
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        abstract HttpRequest.Builder request(URI baseUri, int id);
+
+        static Operation pick(SplittableRandom random) {
+            int ticket = random.nextInt(TOTAL_WEIGHT);
+            for (Operation operation : values()) {
+                ticket -= operation.weight;
+                if (ticket < 0) {
+                    return operation;
+                }
+            }
+            throw new IllegalStateException("Operation weights do not add up to " + TOTAL_WEIGHT);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.tdd.demo.TDD_Spring_Boot.config;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Enables the read-through post cache. Size and TTL come from {@code spring.cache.caffeine.spec};
+ * hit/miss/eviction counters are published by actuator as {@code cache.gets} and {@code cache.evictions}.
+ * Concurrent misses for the same post are coalesced in front of the cache, see {@link SingleFlight}.
+ * <p>
+ * Boot's cache manager is wrapped to be transaction-aware: puts and evictions made inside a transaction only
+ * reach the cache after it commits, and not at all when it rolls back.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String POSTS_CACHE = "posts";
+
+    @Bean
+    public static BeanPostProcessor transactionAwareCacheManager() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof CaffeineCacheManager cacheManager
+                        ? new TransactionAwareCacheManagerProxy(cacheManager)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public SingleFlight<Integer, Optional<Post>> postLookups(@Value("${posts.lookups.max-wait:2s}") Duration maxWait,
+                                                             MeterRegistry meterRegistry) {
+        return new SingleFlight<>("posts.lookups", maxWait, meterRegistry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.tdd.demo.TDD_Spring_Boot.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Latency is recorded at three layers so a slow request can be attributed:
+ * {@code http.server.requests} (whole request incl. serialization), {@code posts.service}
+ * (service method incl. JPA) and {@code posts.db.statements} (JDBC execution only).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
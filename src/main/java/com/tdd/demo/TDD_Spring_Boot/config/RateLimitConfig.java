@@ -0,0 +1,28 @@
+package com.tdd.demo.TDD_Spring_Boot.config;
+
+import com.tdd.demo.TDD_Spring_Boot.ratelimit.LoadSheddingFilter;
+import com.tdd.demo.TDD_Spring_Boot.ratelimit.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Rate limiting and load shedding in front of the servlet API, enabled with {@code posts.rate-limit.enabled}.
+ * Each route in {@code posts.rate-limit.routes} gets a token bucket per client and an adaptive limit on
+ * the requests it has in flight, see {@link LoadSheddingFilter}. The limits are per instance.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBooleanProperty("posts.rate-limit.enabled")
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    public LoadSheddingFilter loadSheddingFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        return new LoadSheddingFilter(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,77 @@
+package com.tdd.demo.TDD_Spring_Boot.config;
+
+import com.tdd.demo.TDD_Spring_Boot.datasource.ReadYourWritesFilter;
+import com.tdd.demo.TDD_Spring_Boot.datasource.ReplicaDataSource;
+import com.tdd.demo.TDD_Spring_Boot.datasource.ReplicaProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to read replicas, enabled with {@code posts.replicas.enabled}.
+ * The application data source becomes a lazy proxy over the primary that only picks a physical connection
+ * once the transaction's read-only flag is known, and then takes it from a {@link ReplicaDataSource}.
+ * Clients that recently wrote are kept on the primary by the {@link ReadYourWritesFilter}.
+ * This relies on open-in-view being off: otherwise the entity manager holds one connection for the whole
+ * request, and every transaction in it would stay on whichever database the first one picked.
+ * <p>
+ * The post cache is filled from whichever database served the miss, so it can hold a lagging replica's
+ * view until the next write to that post.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBooleanProperty("posts.replicas.enabled")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                               ReplicaProperties replicaProperties) {
+        if (replicaProperties.urls().isEmpty()) {
+            throw new IllegalStateException("posts.replicas.enabled is set, but posts.replicas.urls lists no replica");
+        }
+        List<HikariDataSource> replicas = replicaProperties.urls().stream()
+                .map(url -> replica(url, properties, replicaProperties))
+                .toList();
+        return new ReplicaDataSource(primaryDataSource, replicas, replicaProperties.retryAfter().toNanos());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = Type.SERVLET)
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaProperties replicaProperties) {
+        return new ReadYourWritesFilter(replicaProperties.readYourWrites());
+    }
+
+    private static HikariDataSource replica(String url, DataSourceProperties properties, ReplicaProperties replicaProperties) {
+        HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        replica.setReadOnly(true);
+        replica.setConnectionTimeout(replicaProperties.connectTimeout().toMillis());
+        // A replica that is down at start-up must not fail the start-up; it is retried on demand.
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+}
@@ -0,0 +1,121 @@
+package com.tdd.demo.TDD_Spring_Boot.config;
+
+import com.tdd.demo.TDD_Spring_Boot.datasource.ShardProperties;
+import com.tdd.demo.TDD_Spring_Boot.datasource.ShardRing;
+import com.tdd.demo.TDD_Spring_Boot.datasource.ShardRoutingDataSource;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.repository.ShardedPostRepositoryAspect;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partitions the posts over several databases by consistent hash of their id, enabled with
+ * {@code posts.sharding.enabled}. The application data source becomes a lazy proxy over a
+ * {@link ShardRoutingDataSource}, so a transaction only takes its connection once the
+ * {@link ShardedPostRepositoryAspect} has bound the shard its first statement is for. Flyway migrates
+ * every shard. Like replica routing, which it cannot be combined with, this relies on open-in-view
+ * being off. The reactive stack does not go through the post repository and is not sharded.
+ * <p>
+ * Rows are never moved between shards, so the layout is fixed once posts are stored. The first start-up
+ * records the number of shards and virtual nodes on the first shard, and later ones refuse a different
+ * layout; so does a first start-up over a database that already holds unsharded posts.
+ * <p>
+ * The first shard also hands out every post id, see {@link com.tdd.demo.TDD_Spring_Boot.model.PostIdGenerator}:
+ * while it is down no post can be created on any shard, and all inserts share its {@code posts_seq}, one
+ * call per block of ids.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnBooleanProperty("posts.sharding.enabled")
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource firstShardDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource firstShardDataSource,
+                                                         DataSourceProperties properties, ShardProperties shardProperties) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(firstShardDataSource);
+        for (String url : shardProperties.urls()) {
+            shards.add(properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build());
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardRoutingDataSource shardRoutingDataSource,
+                                                          ShardRing shardRing, ShardProperties shardProperties) {
+        return flyway -> {
+            shardRoutingDataSource.getShards().forEach(shard -> Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(shard)
+                    .load()
+                    .migrate());
+            checkLayout(shardRoutingDataSource.getShards().getFirst(), shardRing.shardCount(),
+                    shardProperties.virtualNodes());
+        };
+    }
+
+    @Bean
+    public ShardRing shardRing(ShardProperties shardProperties) {
+        return new ShardRing(1 + shardProperties.urls().size(), shardProperties.virtualNodes());
+    }
+
+    @Bean
+    public ShardedPostRepositoryAspect shardedPostRepositoryAspect(ShardRing shardRing,
+                                                                   ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                                                   ObjectProvider<PostRepository> postRepository,
+                                                                   @Value("${posts.stream.fetch-size:500}") int fetchSize) {
+        return new ShardedPostRepositoryAspect(shardRing, entityManagerFactory, postRepository, fetchSize);
+    }
+
+    private static void checkLayout(DataSource firstShard, int shardCount, int virtualNodes) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(firstShard);
+        List<int[]> recorded = jdbcTemplate.query("select shard_count, virtual_nodes from shard_layout where id = 1",
+                (rs, rowNum) -> new int[] {rs.getInt(1), rs.getInt(2)});
+        if (recorded.isEmpty()) {
+            // Posts already on the first shard were stored before sharding, as if there were one shard.
+            if (shardCount > 1 && jdbcTemplate.queryForObject("select exists (select 1 from posts)", Boolean.class)) {
+                throw new IllegalStateException("The first shard already holds posts stored without sharding; "
+                        + "rows are not moved between shards, so they would become unreachable");
+            }
+            jdbcTemplate.update("insert into shard_layout (id, shard_count, virtual_nodes) values (1, ?, ?)",
+                    shardCount, virtualNodes);
+            return;
+        }
+        int recordedShardCount = recorded.getFirst()[0];
+        int recordedVirtualNodes = recorded.getFirst()[1];
+        if (recordedShardCount != shardCount || recordedVirtualNodes != virtualNodes) {
+            throw new IllegalStateException("posts.sharding configures " + shardCount + " shards with " + virtualNodes
+                    + " virtual nodes, but the posts are stored over " + recordedShardCount + " shards with "
+                    + recordedVirtualNodes + "; rows are not moved between shards, so the layout cannot change");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.BatchItemResult;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostBatchService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/api/v1/posts/batch")
+public class PostBatchController {
+
+    private final PostBatchService postBatchService;
+    private final ObjectReader postReader;
+
+    public PostBatchController(PostBatchService postBatchService, ObjectMapper objectMapper) {
+        this.postBatchService = postBatchService;
+        this.postReader = objectMapper.readerFor(Post.class);
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> createPosts(@RequestBody List<Post> posts) {
+        return ResponseEntity.ok(postBatchService.createPosts(posts.iterator()));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> createPostStream(InputStream body) {
+        return ResponseEntity.ok(readPosts(body, postBatchService::createPosts));
+    }
+
+    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> updatePosts(@RequestBody List<Post> posts) {
+        return ResponseEntity.ok(postBatchService.updatePosts(posts.iterator()));
+    }
+
+    @PutMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> updatePostStream(InputStream body) {
+        return ResponseEntity.ok(readPosts(body, postBatchService::updatePosts));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<List<BatchItemResult>> deletePosts(@RequestBody List<Integer> ids) {
+        return ResponseEntity.ok(postBatchService.deletePosts(ids.iterator()));
+    }
+
+    /**
+     * Streams are written chunk by chunk while they are read, so a line that cannot be read may come after
+     * chunks that have already committed. The input then ends at that line: everything before it keeps its
+     * result, and the line gets a {@code FAILED} entry saying that nothing after it was processed.
+     */
+    private List<BatchItemResult> readPosts(InputStream body, Function<Iterator<Post>, List<BatchItemResult>> write) {
+        try (MappingIterator<Post> posts = postReader.readValues(body)) {
+            UntilMalformed untilMalformed = new UntilMalformed(posts);
+            List<BatchItemResult> results = new ArrayList<>(write.apply(untilMalformed));
+            if (untilMalformed.error != null) {
+                results.add(BatchItemResult.failed(results.size(), null,
+                        untilMalformed.error + "; this and later lines were not processed"));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Reads one post ahead, so a malformed line ends the input in {@link #hasNext} instead of failing
+     * the writer half way through.
+     */
+    private static final class UntilMalformed implements Iterator<Post> {
+
+        private final MappingIterator<Post> posts;
+        private Post next;
+        private String error;
+
+        UntilMalformed(MappingIterator<Post> posts) {
+            this.posts = posts;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (error != null) {
+                return false;
+            }
+            try {
+                if (posts.hasNextValue()) {
+                    next = posts.nextValue();
+                }
+            } catch (JacksonException ex) {
+                error = "Malformed line: " + ex.getOriginalMessage();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Post next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Post post = next;
+            next = null;
+            return post;
+        }
+    }
+}
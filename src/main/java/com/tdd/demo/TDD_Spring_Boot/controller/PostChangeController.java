@@ -0,0 +1,113 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostChange;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangeFeed;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangeLog;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Change feed of the posts. A consumer takes the current {@code /position}, reads the posts once, and from
+ * then on only follows the changes after that position: either by long polling, where a request with
+ * nothing to return is held for up to {@code wait} seconds until something commits, or as Server-Sent
+ * Events, where each event id is the change's position and a reconnecting client resumes from its
+ * {@code Last-Event-ID}. A position older than the retained changes is answered with 410.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnBooleanProperty(name = "posts.sharding.enabled", havingValue = false, matchIfMissing = true)
+@RequestMapping("/api/v1/posts/changes")
+public class PostChangeController {
+
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_WAIT_SECONDS = 60;
+    // EventSource clients reconnect on their own with Last-Event-ID, so streams need not live forever.
+    static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+
+    private final PostChangeLog changeLog;
+    private final PostChangeFeed changeFeed;
+
+    public PostChangeController(PostChangeLog changeLog, PostChangeFeed changeFeed) {
+        this.changeLog = changeLog;
+        this.changeFeed = changeFeed;
+    }
+
+    @GetMapping("/position")
+    public long getPosition() {
+        return changeLog.lastSeq();
+    }
+
+    @GetMapping
+    public DeferredResult<List<PostChange>> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                       @RequestParam(defaultValue = "100") int limit,
+                                                       @RequestParam(defaultValue = "30") int wait) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        long waitMillis = Duration.ofSeconds(Math.clamp(wait, 0, MAX_WAIT_SECONDS)).toMillis();
+        DeferredResult<List<PostChange>> result = new DeferredResult<>(Math.max(waitMillis, 1), List::of);
+
+        List<PostChange> changes = changeLog.changesSince(since, pageSize);
+        if (!changes.isEmpty() || waitMillis == 0) {
+            result.setResult(changes);
+            return result;
+        }
+        PostChangeFeed.Subscription subscription = changeFeed.subscribe(since, new PostChangeFeed.Listener() {
+            @Override
+            public boolean onChanges(List<PostChange> next) {
+                result.setResult(next.size() > pageSize ? List.copyOf(next.subList(0, pageSize)) : List.copyOf(next));
+                return false;
+            }
+
+            @Override
+            public void onClose() {
+                result.setResult(List.of());
+            }
+        });
+        result.onCompletion(subscription::cancel);
+        return result;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId : since != null ? since : 0;
+        // Fail with 410 now rather than after the stream has started.
+        changeLog.changesSince(from, 1);
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        PostChangeFeed.Subscription subscription = changeFeed.subscribe(from, new PostChangeFeed.Listener() {
+            @Override
+            public boolean onChanges(List<PostChange> changes) {
+                try {
+                    for (PostChange change : changes) {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(change.seq()))
+                                .name(change.type().name().toLowerCase())
+                                .data(change, MediaType.APPLICATION_JSON));
+                    }
+                    return true;
+                } catch (IOException | IllegalStateException ex) {
+                    // The client went away; the emitter's own callbacks complete the request.
+                    return false;
+                }
+            }
+
+            @Override
+            public void onClose() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(ex -> subscription.cancel());
+        return emitter;
+    }
+}
@@ -1,41 +1,188 @@
 package com.tdd.demo.TDD_Spring_Boot.controller;
 
+import com.tdd.demo.TDD_Spring_Boot.dto.PostListing;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostVersion;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostsById;
+import com.tdd.demo.TDD_Spring_Boot.exception.InvalidFieldsException;
 import com.tdd.demo.TDD_Spring_Boot.model.Post;
 import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import com.tdd.demo.TDD_Spring_Boot.snapshot.PostSnapshot;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SequenceWriter;
+import tools.jackson.databind.SerializationFeature;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RequestMapping("/api/v1")
 public class PostController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_IDS = 1000;
+
     private final PostService postService;
+    private final ObjectWriter ndjsonWriter;
+    private final ObjectWriter ndjsonFieldsWriter;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, ObjectMapper objectMapper) {
         this.postService = postService;
+        // Let the servlet buffer decide when to hit the socket instead of flushing after every row.
+        this.ndjsonWriter = objectMapper.writerFor(Post.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.ndjsonFieldsWriter = objectMapper.writerFor(Map.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
+    /**
+     * Pages of posts ordered by {@code sort}: {@code id} (the default), {@code createdAt}, {@code -createdAt}
+     * for newest first, or {@code title}. {@code createdFrom} (inclusive), {@code createdTo} (exclusive) and
+     * {@code titlePrefix} narrow the listing down. Each order is a scan over an index in that order; a filter
+     * on the sorted column only scans the range it selects. In snapshot mode unfiltered pages in id order come
+     * from the snapshot; sorted or filtered pages still query the database and may be newer than the snapshot.
+     */
     @GetMapping("/posts")
-    public ResponseEntity<List<Post>> getPosts() {
-        List<Post> posts = postService.getAllPosts();
+    public ResponseEntity<List<Object>> getPosts(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "100") int limit,
+                                                 @RequestParam(required = false) String fields,
+                                                 @RequestParam(defaultValue = "id") String sort,
+                                                 @RequestParam(required = false) Instant createdFrom,
+                                                 @RequestParam(required = false) Instant createdTo,
+                                                 @RequestParam(required = false) String titlePrefix) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        PostFields selected = PostFields.parse(fields);
+        PostListing.Order order = switch (sort) {
+            case "id" -> PostListing.Order.ID;
+            case "createdAt" -> PostListing.Order.CREATED_AT;
+            case "-createdAt" -> PostListing.Order.CREATED_AT_DESC;
+            case "title" -> PostListing.Order.TITLE;
+            default -> throw new InvalidFieldsException("Cannot sort by: " + sort);
+        };
+        // Fetch one extra row to find out whether there is a next page without a count query.
+        if (order == PostListing.Order.ID) {
+            int afterId = cursor == null ? 0 : PostCursor.decode(cursor);
+            PostListing listing = new PostListing(order, createdFrom, createdTo, titlePrefix, null, null, afterId,
+                    pageSize + 1);
+            if (!listing.isFiltered() && selected.includesDescription()) {
+                return page(postService.getPosts(afterId, pageSize + 1), pageSize,
+                        post -> PostCursor.encode(post.getId()), PostETags::of, selected::select);
+            }
+            if (!listing.isFiltered()) {
+                return page(postService.getPostSummaries(afterId, pageSize + 1), pageSize,
+                        post -> PostCursor.encode(post.id()), PostETags::ofSummaries, selected::select);
+            }
+            return page(listing, pageSize, selected,
+                    post -> PostCursor.encode(post.getId()), summary -> PostCursor.encode(summary.id()));
+        }
+
+        PostCursor.Keyset after = cursor == null ? new PostCursor.Keyset(null, null, 0) : PostCursor.decode(cursor, order);
+        PostListing listing = new PostListing(order, createdFrom, createdTo, titlePrefix,
+                after.createdAt(), after.title(), after.id(), pageSize + 1);
+        if (order == PostListing.Order.TITLE) {
+            return page(listing, pageSize, selected,
+                    post -> PostCursor.encode(post.getTitle(), post.getId()),
+                    summary -> PostCursor.encode(summary.title(), summary.id()));
+        }
+        return page(listing, pageSize, selected,
+                post -> PostCursor.encode(post.getCreatedAt(), post.getId()),
+                summary -> PostCursor.encode(summary.createdAt(), summary.id()));
+    }
+
+    /**
+     * Many posts by id in one call, e.g. {@code ?ids=7,3,12}, in the order asked for. Ids without a post are
+     * reported in {@code missing}. Like a single post, these come from the post cache where possible, so
+     * {@code fields} only trims the response.
+     */
+    @GetMapping(value = "/posts", params = "ids")
+    public ResponseEntity<PostsById<Object>> getPostsByIds(@RequestParam List<Integer> ids,
+                                                           @RequestParam(required = false) String fields) {
+        return postsByIds(ids, fields);
+    }
 
-        return ResponseEntity.ok(posts);
+    /**
+     * {@link #getPostsByIds} for id lists too long for a URL, sent as a JSON array.
+     */
+    @PostMapping("/posts/lookup")
+    public ResponseEntity<PostsById<Object>> lookupPosts(@RequestBody List<Integer> ids,
+                                                         @RequestParam(required = false) String fields) {
+        return postsByIds(ids, fields);
     }
 
+    @GetMapping(value = "/posts", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPosts(@RequestParam(required = false) String fields) {
+        PostFields selected = PostFields.parse(fields);
+        StreamingResponseBody body = outputStream -> {
+            if (selected == PostFields.ALL) {
+                if (postService.streamAllPostJson(outputStream)) {
+                    return;
+                }
+                try (SequenceWriter writer = ndjsonWriter.writeValues(outputStream)) {
+                    postService.streamAllPosts(writer::write);
+                }
+            } else if (selected.includesDescription()) {
+                try (SequenceWriter writer = ndjsonFieldsWriter.writeValues(outputStream)) {
+                    postService.streamAllPosts(post -> writer.write(selected.select(post)));
+                }
+            } else {
+                try (SequenceWriter writer = ndjsonFieldsWriter.writeValues(outputStream)) {
+                    postService.streamAllPostSummaries(post -> writer.write(selected.select(post)));
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * A single post always comes from the post cache, so {@code fields} only trims the response here.
+     * In snapshot mode the whole post is answered with the JSON bytes stored in the snapshot, unless the
+     * client prefers another format.
+     */
     @GetMapping("/post/{id}")
-    public ResponseEntity<Post> getPostById(@PathVariable int id) {
+    public ResponseEntity<Object> getPostById(@PathVariable int id, @RequestParam(required = false) String fields,
+                                              WebRequest request) {
+        PostFields selected = PostFields.parse(fields);
+        // Revalidation only needs the version: taken from the cached post, or read without the content.
+        if (isConditional(request)) {
+            PostVersion version = postService.getPostVersion(id);
+            if (request.checkNotModified(PostETags.of(version.version()), epochMillis(version.updatedAt()))) {
+                return null;
+            }
+        }
+        if (selected == PostFields.ALL && prefersJson(request)) {
+            PostSnapshot.Json json = postService.getPostJson(id);
+            if (json != null) {
+                return PostETags.withValidators(ResponseEntity.ok(), json.version(), json.updatedAt())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(json.body());
+            }
+        }
         Post post = postService.getPostById(id);
 
-        return ResponseEntity.ok(post);
+        return PostETags.withValidators(ResponseEntity.ok(), post).body(selected.select(post));
     }
 
     @PostMapping("/post")
     public ResponseEntity<Post> savePost(@RequestBody Post post) {
         Post savedPost = postService.savePost(post);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedPost);
+        return PostETags.withValidators(ResponseEntity.status(HttpStatus.CREATED), savedPost).body(savedPost);
     }
 
     @DeleteMapping("/post/{id}")
@@ -45,8 +192,63 @@ public class PostController {
     }
 
     @PutMapping("/post/{id}")
-    public ResponseEntity<Post> updatePost(@PathVariable int id, @RequestBody Post post) {
-        Post savedPost = postService.updatePost(id, post);
-        return ResponseEntity.ok(savedPost);
+    public ResponseEntity<Post> updatePost(@PathVariable int id, @RequestBody Post post,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Post savedPost = ifMatch == null || ifMatch.strip().equals("*")
+                ? postService.updatePost(id, post)
+                : postService.updatePost(id, post, PostETags.version(ifMatch));
+        return PostETags.withValidators(ResponseEntity.ok(), savedPost).body(savedPost);
+    }
+
+    private ResponseEntity<PostsById<Object>> postsByIds(List<Integer> ids, String fields) {
+        PostFields selected = PostFields.parse(fields);
+        if (ids.size() > MAX_IDS) {
+            throw new InvalidFieldsException("At most " + MAX_IDS + " ids can be looked up at once, not " + ids.size());
+        }
+        return ResponseEntity.ok(postService.getPostsByIds(ids).map(selected::select));
+    }
+
+    private ResponseEntity<List<Object>> page(PostListing listing, int pageSize, PostFields selected,
+                                              Function<Post, String> postCursor,
+                                              Function<PostSummary, String> summaryCursor) {
+        if (selected.includesDescription()) {
+            return page(postService.getPosts(listing), pageSize, postCursor, PostETags::of, selected::select);
+        }
+        return page(postService.getPostSummaries(listing), pageSize, summaryCursor, PostETags::ofSummaries, selected::select);
+    }
+
+    private static <T> ResponseEntity<List<Object>> page(List<T> posts, int pageSize, Function<T, String> cursor,
+                                                         Function<List<T>, String> eTag, Function<T, Object> render) {
+        // Pages only carry an ETag: a deleted row changes the page without moving any Last-Modified.
+        if (posts.size() <= pageSize) {
+            return ResponseEntity.ok().eTag(eTag.apply(posts)).body(posts.stream().map(render).toList());
+        }
+
+        List<T> page = posts.subList(0, pageSize);
+        return ResponseEntity.ok()
+                .eTag(eTag.apply(page))
+                .header(NEXT_CURSOR_HEADER, cursor.apply(page.getLast()))
+                .body(page.stream().map(render).toList());
+    }
+
+    private static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private static boolean prefersJson(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).getFirst().isCompatibleWith(MediaType.APPLICATION_JSON);
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
+
+    private static long epochMillis(Instant instant) {
+        return instant == null ? -1 : instant.toEpochMilli();
     }
 }
@@ -0,0 +1,83 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostListing;
+import com.tdd.demo.TDD_Spring_Boot.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor handed to clients as the "next page" token of {@code GET /api/v1/posts}.
+ * It carries the sort key of the last post of the previous page: its id, plus its creation time or title
+ * when the listing is sorted by those. Clients must treat it as a black box.
+ */
+final class PostCursor {
+
+    private static final String PREFIX = "id:";
+    private static final String CREATED_AT_PREFIX = "createdAt:";
+    private static final String TITLE_PREFIX = "title:";
+
+    private PostCursor() {}
+
+    /**
+     * Position after a post in a listing sorted by creation time or title; the key not sorted by is null.
+     */
+    record Keyset(Instant createdAt, String title, int id) {}
+
+    static String encode(int lastId) {
+        return encode(PREFIX + lastId);
+    }
+
+    static String encode(Instant createdAt, int lastId) {
+        return encode(CREATED_AT_PREFIX + lastId + ":" + createdAt.getEpochSecond() + "." + createdAt.getNano());
+    }
+
+    static String encode(String title, int lastId) {
+        return encode(TITLE_PREFIX + lastId + ":" + title);
+    }
+
+    static int decode(String cursor) {
+        try {
+            return Integer.parseInt(payload(cursor, PREFIX));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    static Keyset decode(String cursor, PostListing.Order order) {
+        try {
+            String payload = payload(cursor, order == PostListing.Order.TITLE ? TITLE_PREFIX : CREATED_AT_PREFIX);
+            int separator = payload.indexOf(':');
+            if (separator < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            int id = Integer.parseInt(payload.substring(0, separator));
+            String key = payload.substring(separator + 1);
+            if (order == PostListing.Order.TITLE) {
+                return new Keyset(null, key, id);
+            }
+            int dot = key.indexOf('.');
+            if (dot < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(key.substring(0, dot)), Long.parseLong(key.substring(dot + 1)));
+            return new Keyset(createdAt, null, id);
+        } catch (IllegalArgumentException | ArithmeticException | DateTimeException ex) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String payload(String cursor, String prefix) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!raw.startsWith(prefix)) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+        return raw.substring(prefix.length());
+    }
+}
@@ -0,0 +1,73 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.exception.PostVersionConflictException;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Entity tags for post resources. A single post gets a strong tag with its version, so a tag can be
+ * checked against the database without loading the post. A page gets a weak tag with a hash of the
+ * ids and versions it contains: weak is all revalidation needs, and Tomcat will not gzip a response
+ * carrying a strong tag.
+ */
+final class PostETags {
+
+    private PostETags() {}
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    static String of(List<Post> posts) {
+        return ofPage(posts, Post::getId, Post::getVersion);
+    }
+
+    static String ofSummaries(List<PostSummary> posts) {
+        return ofPage(posts, PostSummary::id, PostSummary::version);
+    }
+
+    private static <T> String ofPage(List<T> posts, Function<T, Integer> id, Function<T, Long> version) {
+        long hash = 1;
+        for (T post : posts) {
+            hash = 31 * hash + id.apply(post);
+            hash = 31 * hash + Objects.hashCode(version.apply(post));
+        }
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, Post post) {
+        return withValidators(builder, post.getVersion(), post.getUpdatedAt());
+    }
+
+    static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, Long version, Instant updatedAt) {
+        if (version != null) {
+            builder.eTag(of(version));
+        }
+        if (updatedAt != null) {
+            builder.lastModified(updatedAt);
+        }
+        return builder;
+    }
+
+    /**
+     * The version named by an {@code If-Match} header. Weak or foreign tags can never match a strong
+     * comparison, so they fail the precondition straight away.
+     */
+    static long version(String ifMatch) {
+        String tag = ifMatch.strip();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // fall through
+            }
+        }
+        throw new PostVersionConflictException("If-Match " + ifMatch + " does not match any version!");
+    }
+}
@@ -0,0 +1,84 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.exception.InvalidFieldsException;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Sparse fieldset of the {@code fields} request parameter, e.g. {@code ?fields=id,title}. Selected posts
+ * are rendered as maps holding just those fields, in the order of the full representation and without
+ * nulls. Without the parameter posts are rendered as they are.
+ */
+final class PostFields {
+
+    static final String DESCRIPTION = "description";
+    static final PostFields ALL = new PostFields(null);
+
+    private static final Map<String, Function<Post, Object>> POST_FIELDS = new LinkedHashMap<>();
+    private static final Map<String, Function<PostSummary, Object>> SUMMARY_FIELDS = new LinkedHashMap<>();
+
+    static {
+        POST_FIELDS.put("id", Post::getId);
+        POST_FIELDS.put("title", Post::getTitle);
+        POST_FIELDS.put(DESCRIPTION, Post::getDescription);
+        POST_FIELDS.put("version", Post::getVersion);
+        POST_FIELDS.put("createdAt", Post::getCreatedAt);
+        POST_FIELDS.put("updatedAt", Post::getUpdatedAt);
+        SUMMARY_FIELDS.put("id", PostSummary::id);
+        SUMMARY_FIELDS.put("title", PostSummary::title);
+        SUMMARY_FIELDS.put("version", PostSummary::version);
+        SUMMARY_FIELDS.put("createdAt", PostSummary::createdAt);
+        SUMMARY_FIELDS.put("updatedAt", PostSummary::updatedAt);
+    }
+
+    private final List<String> names;
+
+    private PostFields(List<String> names) {
+        this.names = names;
+    }
+
+    static PostFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        List<String> requested = Arrays.stream(fields.split(",")).map(String::strip).toList();
+        for (String name : requested) {
+            if (!POST_FIELDS.containsKey(name)) {
+                throw new InvalidFieldsException("Unknown field: " + name);
+            }
+        }
+        return new PostFields(POST_FIELDS.keySet().stream().filter(requested::contains).toList());
+    }
+
+    /**
+     * Whether the fieldset needs the description; if not, the posts can be read as {@link PostSummary}.
+     */
+    boolean includesDescription() {
+        return names == null || names.contains(DESCRIPTION);
+    }
+
+    Object select(Post post) {
+        return names == null ? post : select(post, POST_FIELDS);
+    }
+
+    Object select(PostSummary summary) {
+        return select(summary, SUMMARY_FIELDS);
+    }
+
+    private <T> Map<String, Object> select(T source, Map<String, Function<T, Object>> fields) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        fields.forEach((name, getter) -> {
+            Object value = getter.apply(source);
+            if (value != null && (names == null || names.contains(name))) {
+                selected.put(name, value);
+            }
+        });
+        return selected;
+    }
+}
@@ -0,0 +1,47 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.exception.InvalidPageException;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.search.PostSearchService;
+import com.tdd.demo.TDD_Spring_Boot.search.PostSearchService.SearchResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/api/v1/posts/search")
+public class PostSearchController {
+
+    static final String TOTAL_HITS_HEADER = "X-Total-Hits";
+    static final int MAX_PAGE_SIZE = 100;
+    // Deep pages cost O(page * size) in Lucene; pages past this window are refused and clients should refine the query.
+    static final int MAX_RESULT_WINDOW = 10_000;
+
+    private final PostSearchService postSearchService;
+
+    public PostSearchController(PostSearchService postSearchService) {
+        this.postSearchService = postSearchService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Post>> search(@RequestParam("q") String query,
+                                             @RequestParam(defaultValue = "0") int page,
+                                             @RequestParam(defaultValue = "20") int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        if (page < 0 || (long) (page + 1) * pageSize > MAX_RESULT_WINDOW) {
+            throw new InvalidPageException("Page " + page + " of size " + pageSize + " is outside the first "
+                    + MAX_RESULT_WINDOW + " results, refine the query instead");
+        }
+        SearchResult result = postSearchService.search(query, page, pageSize);
+        return ResponseEntity.ok()
+                .header(TOTAL_HITS_HEADER, Long.toString(result.totalHits()))
+                .body(result.posts());
+    }
+}
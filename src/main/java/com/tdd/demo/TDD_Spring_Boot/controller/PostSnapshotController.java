@@ -0,0 +1,44 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSnapshotInfo;
+import com.tdd.demo.TDD_Spring_Boot.snapshot.PostSnapshot;
+import com.tdd.demo.TDD_Spring_Boot.snapshot.PostSnapshots;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnBooleanProperty("posts.snapshot.enabled")
+@RequestMapping("/api/v1/posts/snapshot")
+public class PostSnapshotController {
+
+    private final PostSnapshots postSnapshots;
+
+    public PostSnapshotController(PostSnapshots postSnapshots) {
+        this.postSnapshots = postSnapshots;
+    }
+
+    @GetMapping
+    public ResponseEntity<PostSnapshotInfo> getSnapshot() {
+        PostSnapshot snapshot = postSnapshots.current();
+        return snapshot == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(info(snapshot));
+    }
+
+    /**
+     * Rebuilds the snapshot from the database, e.g. after a bulk load, and answers once reads use it.
+     */
+    @PostMapping
+    public ResponseEntity<PostSnapshotInfo> rebuildSnapshot() {
+        return ResponseEntity.ok(info(postSnapshots.rebuild()));
+    }
+
+    private static PostSnapshotInfo info(PostSnapshot snapshot) {
+        return new PostSnapshotInfo(snapshot.size(), snapshot.bytes());
+    }
+}
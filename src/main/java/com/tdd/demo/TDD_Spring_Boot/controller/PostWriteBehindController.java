@@ -0,0 +1,47 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.QueuedPostStatus;
+import com.tdd.demo.TDD_Spring_Boot.exception.QueuedPostNotFoundException;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostWriteBehindQueue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Asynchronous post creation. A {@code POST /api/v1/post} whose {@code Prefer} header (RFC 7240) includes
+ * {@code respond-async} is routed here instead of to {@link PostController}: the post is queued and answered
+ * with 202 and a {@code Location} to poll for the id it eventually gets.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/api/v1")
+public class PostWriteBehindController {
+
+    private final PostWriteBehindQueue writeBehindQueue;
+
+    public PostWriteBehindController(PostWriteBehindQueue writeBehindQueue) {
+        this.writeBehindQueue = writeBehindQueue;
+    }
+
+    @PostMapping("/post")
+    @PreferenceMapping("respond-async")
+    public ResponseEntity<QueuedPostStatus> queuePost(@RequestBody Post post) {
+        QueuedPostStatus status = writeBehindQueue.enqueue(post);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/post/queued/" + status.ticket()))
+                .header("Preference-Applied", "respond-async")
+                .body(status);
+    }
+
+    @GetMapping("/post/queued/{ticket}")
+    public ResponseEntity<QueuedPostStatus> getQueuedPost(@PathVariable UUID ticket) {
+        return writeBehindQueue.getStatus(ticket)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new QueuedPostNotFoundException(ticket));
+    }
+}
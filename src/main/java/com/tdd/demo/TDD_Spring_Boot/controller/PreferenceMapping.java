@@ -0,0 +1,23 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Narrows a request mapping to requests whose {@code Prefer} header (RFC 7240) names the given preference,
+ * wherever it stands among the other preferences and whatever parameters it has. Unlike
+ * {@code headers = "Prefer=..."}, which needs the header to be exactly that value, this matches
+ * {@code Prefer: respond-async, wait=5} as well as {@code Prefer: respond-async}.
+ * Mappings with a preference win over the same mapping without one.
+ *
+ * @see PreferenceMappings
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PreferenceMapping {
+
+    /** Name of the preference, compared without regard to case. */
+    String value();
+}
@@ -0,0 +1,70 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.webmvc.autoconfigure.WebMvcRegistrations;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Installs the handler mapping that turns {@link PreferenceMapping} into a request condition.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class PreferenceMappings implements WebMvcRegistrations {
+
+    @Override
+    public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+        return new RequestMappingHandlerMapping() {
+            @Override
+            protected RequestCondition<?> getCustomMethodCondition(Method method) {
+                PreferenceMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, PreferenceMapping.class);
+                return mapping == null ? null : new PreferenceCondition(mapping.value().toLowerCase(Locale.ROOT));
+            }
+        };
+    }
+
+    private record PreferenceCondition(String preference) implements RequestCondition<PreferenceCondition> {
+
+        @Override
+        public PreferenceCondition combine(PreferenceCondition other) {
+            return other;
+        }
+
+        @Override
+        public PreferenceCondition getMatchingCondition(HttpServletRequest request) {
+            return preferences(request).contains(preference) ? this : null;
+        }
+
+        @Override
+        public int compareTo(PreferenceCondition other, HttpServletRequest request) {
+            return 0;
+        }
+
+        /**
+         * Preference names of every {@code Prefer} header, lower-cased. Each header is a comma-separated list
+         * of {@code name[=value]} tokens, optionally followed by {@code ;}-separated parameters.
+         */
+        private static Set<String> preferences(HttpServletRequest request) {
+            Set<String> names = new HashSet<>();
+            for (String header : Collections.list(request.getHeaders("Prefer"))) {
+                for (String token : header.split(",")) {
+                    String name = token.split("[;=]", 2)[0].strip().toLowerCase(Locale.ROOT);
+                    if (!name.isEmpty()) {
+                        names.add(name);
+                    }
+                }
+            }
+            return names;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.ReactivePostService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.tdd.demo.TDD_Spring_Boot.controller.PostController.MAX_PAGE_SIZE;
+import static com.tdd.demo.TDD_Spring_Boot.controller.PostController.NEXT_CURSOR_HEADER;
+
+/**
+ * The {@link PostController} API on the reactive runtime: same paths, cursors, validators and error
+ * mapping, but no request ever holds a thread while it waits for the database or a slow client.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping("/api/v1")
+public class ReactivePostController {
+
+    private final ReactivePostService postService;
+
+    public ReactivePostController(ReactivePostService postService) {
+        this.postService = postService;
+    }
+
+    @GetMapping("/posts")
+    public Mono<ResponseEntity<List<Post>>> getPosts(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        int afterId = cursor == null ? 0 : PostCursor.decode(cursor);
+        return postService.getPosts(afterId, pageSize + 1).collectList().map(posts -> {
+            if (posts.size() <= pageSize) {
+                return ResponseEntity.ok().eTag(PostETags.of(posts)).body(posts);
+            }
+
+            List<Post> page = posts.subList(0, pageSize);
+            return ResponseEntity.ok()
+                    .eTag(PostETags.of(page))
+                    .header(NEXT_CURSOR_HEADER, PostCursor.encode(page.getLast().getId()))
+                    .body(page);
+        });
+    }
+
+    /**
+     * Streams every post as NDJSON; rows are read from the database only as fast as the client consumes them.
+     */
+    @GetMapping(value = "/posts", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Post> streamPosts() {
+        return postService.streamAllPosts();
+    }
+
+    @GetMapping("/post/{id}")
+    public Mono<ResponseEntity<Post>> getPostById(@PathVariable int id, ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        if (headers.getFirst(HttpHeaders.IF_NONE_MATCH) == null && headers.getFirst(HttpHeaders.IF_MODIFIED_SINCE) == null) {
+            return getPostById(id);
+        }
+        // Revalidation only needs the version, so answer it without loading the post.
+        return postService.getPostVersion(id).flatMap(version ->
+                exchange.checkNotModified(PostETags.of(version.version()), version.updatedAt())
+                        ? Mono.empty()
+                        : getPostById(id));
+    }
+
+    @PostMapping("/post")
+    public Mono<ResponseEntity<Post>> savePost(@RequestBody Post post) {
+        return postService.savePost(post)
+                .map(savedPost -> PostETags.withValidators(ResponseEntity.status(HttpStatus.CREATED), savedPost).body(savedPost));
+    }
+
+    @DeleteMapping("/post/{id}")
+    public Mono<ResponseEntity<Void>> deletePostById(@PathVariable int id) {
+        return postService.deletePost(id).then(Mono.just(ResponseEntity.status(HttpStatus.NO_CONTENT).build()));
+    }
+
+    @PutMapping("/post/{id}")
+    public Mono<ResponseEntity<Post>> updatePost(@PathVariable int id, @RequestBody Post post,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Mono<Post> savedPost = ifMatch == null || ifMatch.strip().equals("*")
+                ? postService.updatePost(id, post)
+                : postService.updatePost(id, post, PostETags.version(ifMatch));
+        return savedPost.map(saved -> PostETags.withValidators(ResponseEntity.ok(), saved).body(saved));
+    }
+
+    private Mono<ResponseEntity<Post>> getPostById(int id) {
+        return postService.getPostById(id).map(post -> PostETags.withValidators(ResponseEntity.ok(), post).body(post));
+    }
+}
@@ -0,0 +1,127 @@
+package com.tdd.demo.TDD_Spring_Boot.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out connections for read-only transactions. Replicas are used round robin; one that fails to
+ * hand out a connection is skipped for {@code retryAfter} and the next one is tried, falling back to the
+ * primary when none is left. Work running inside {@link #pinToPrimary()} always reads from the primary.
+ * Connection acquisitions are counted as {@code posts.db.routing}, tagged with the chosen target.
+ */
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+    private static final Counter REPLICA_READS = routingCounter("replica");
+    private static final Counter PRIMARY_READS = routingCounter("primary");
+    private static final Counter FAILOVERS = routingCounter("failover");
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primary, List<? extends DataSource> replicas, long retryAfterNanos) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.retryAfterNanos = retryAfterNanos;
+    }
+
+    /**
+     * Routes reads on the current thread to the primary until the returned pin is closed.
+     */
+    public static Pin pinToPrimary() {
+        Boolean previous = PINNED_TO_PRIMARY.get();
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        return () -> PINNED_TO_PRIMARY.set(previous);
+    }
+
+    /**
+     * Whether reads on the current thread are routed to the primary.
+     */
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!isPinnedToPrimary() && !replicas.isEmpty()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (replica.isDown()) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    REPLICA_READS.increment();
+                    return connection;
+                } catch (SQLException ex) {
+                    replica.markDown(retryAfterNanos);
+                    FAILOVERS.increment();
+                    log.warn("Replica unavailable, skipping it for {} ms: {}", retryAfterNanos / 1_000_000, ex.getMessage());
+                }
+            }
+        }
+        PRIMARY_READS.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replicas use the credentials they were configured with");
+    }
+
+    /**
+     * Closes the replica pools; the primary belongs to whoever passed it in.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static Counter routingCounter(String target) {
+        return Counter.builder("posts.db.routing")
+                .tag("target", target)
+                .register(Metrics.globalRegistry);
+    }
+
+    public interface Pin extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        private final AtomicLong downUntil = new AtomicLong(System.nanoTime());
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        boolean isDown() {
+            return System.nanoTime() - downUntil.get() < 0;
+        }
+
+        void markDown(long nanos) {
+            downUntil.set(System.nanoTime() + nanos);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.tdd.demo.TDD_Spring_Boot.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas behind the primary data source, under {@code posts.replicas}. They share the primary's
+ * credentials.
+ *
+ * @param urls           JDBC urls of the replicas; at least one is required
+ * @param readYourWrites how long a client's reads stay on the primary after it wrote; should exceed the replication lag
+ * @param retryAfter     how long a replica that failed to hand out a connection is skipped
+ * @param connectTimeout how long to wait for a replica connection before failing over
+ */
+@ConfigurationProperties("posts.replicas")
+public record ReplicaProperties(@DefaultValue List<String> urls,
+                                @DefaultValue("5s") Duration readYourWrites,
+                                @DefaultValue("10s") Duration retryAfter,
+                                @DefaultValue("1s") Duration connectTimeout) {
+}
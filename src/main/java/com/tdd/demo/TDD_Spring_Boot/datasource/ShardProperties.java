@@ -0,0 +1,18 @@
+package com.tdd.demo.TDD_Spring_Boot.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Databases the posts are partitioned over, under {@code posts.sharding}. The first shard is
+ * {@code spring.datasource} itself; the others share its credentials.
+ *
+ * @param urls         JDBC urls of the shards after the first, in shard order; fixed once posts are stored
+ * @param virtualNodes points each shard gets on the hash ring; more points spread the ids more evenly
+ */
+@ConfigurationProperties("posts.sharding")
+public record ShardProperties(@DefaultValue List<String> urls,
+                              @DefaultValue("64") int virtualNodes) {
+}
@@ -0,0 +1,47 @@
+package com.tdd.demo.TDD_Spring_Boot.datasource;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring mapping post ids to shards. Every shard owns {@code virtualNodes} points on the
+ * ring, placed by hashing its position in the shard list; an id belongs to the first point at or after
+ * its own hash. Adding a shard would reassign the ids that land on the new shard's points, roughly
+ * {@code 1 / (n + 1)} of them, but nothing moves their rows, so the ring is fixed once posts are stored.
+ */
+public final class ShardRing {
+
+    private final NavigableMap<Integer, Integer> ring = new TreeMap<>();
+    private final int shardCount;
+
+    public ShardRing(int shardCount, int virtualNodes) {
+        this.shardCount = shardCount;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(mix(31 * ("shard-" + shard).hashCode() + node), shard);
+            }
+        }
+    }
+
+    public int shardFor(int id) {
+        Map.Entry<Integer, Integer> point = ring.ceilingEntry(mix(id));
+        return (point != null ? point : ring.firstEntry()).getValue();
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Murmur3's finalizer: consecutive ids must not land next to each other on the ring.
+     */
+    private static int mix(int value) {
+        value ^= value >>> 16;
+        value *= 0x85ebca6b;
+        value ^= value >>> 13;
+        value *= 0xc2b2ae35;
+        value ^= value >>> 16;
+        return value;
+    }
+}
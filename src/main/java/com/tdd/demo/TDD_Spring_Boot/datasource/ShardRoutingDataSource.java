@@ -0,0 +1,85 @@
+package com.tdd.demo.TDD_Spring_Boot.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Hands out connections of the shard bound to the current thread with {@link #bind}, or of the first
+ * shard when none is bound, which is what start-up work such as schema validation gets.
+ * Connection acquisitions are counted as {@code posts.db.shard}, tagged with the shard.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final List<? extends DataSource> shards;
+    private final List<Counter> acquisitions;
+
+    public ShardRoutingDataSource(List<? extends DataSource> shards) {
+        this.shards = shards;
+        this.acquisitions = IntStream.range(0, shards.size())
+                .mapToObj(shard -> Counter.builder("posts.db.shard")
+                        .tag("shard", String.valueOf(shard))
+                        .register(Metrics.globalRegistry))
+                .toList();
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.getFirst());
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Routes connections taken on the current thread to {@code shard} until the returned binding is closed.
+     */
+    public static Binding bind(int shard) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        return () -> CURRENT_SHARD.set(previous);
+    }
+
+    /**
+     * The shard bound to the current thread, {@code null} when none is.
+     */
+    public static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    public List<? extends DataSource> getShards() {
+        return shards;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = CURRENT_SHARD.get();
+        acquisitions.get(shard == null ? 0 : shard).increment();
+        return shard;
+    }
+
+    /**
+     * Closes the pools of the shards after the first; the first belongs to whoever passed it in.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards.subList(1, shards.size())) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
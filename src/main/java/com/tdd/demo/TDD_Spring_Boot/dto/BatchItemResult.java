@@ -0,0 +1,22 @@
+package com.tdd.demo.TDD_Spring_Boot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one element of a bulk request; {@code index} is the element's position in the request body.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult(int index, Integer id, Status status, String error) {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, FAILED
+    }
+
+    public static BatchItemResult of(int index, Integer id, Status status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    public static BatchItemResult failed(int index, Integer id, String error) {
+        return new BatchItemResult(index, id, Status.FAILED, error);
+    }
+}
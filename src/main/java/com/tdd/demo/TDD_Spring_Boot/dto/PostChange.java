@@ -0,0 +1,14 @@
+package com.tdd.demo.TDD_Spring_Boot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangedEvent;
+
+import java.time.Instant;
+
+/**
+ * One committed write in the change feed. {@code seq} is the feed position: it grows in commit order
+ * without gaps, and is what a consumer passes back as {@code since}. Deletions carry no version.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PostChange(long seq, PostChangedEvent.Type type, int postId, Long version, Instant changedAt) {
+}
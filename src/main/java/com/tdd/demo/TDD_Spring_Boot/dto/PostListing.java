@@ -0,0 +1,32 @@
+package com.tdd.demo.TDD_Spring_Boot.dto;
+
+import java.time.Instant;
+
+/**
+ * One keyset page of posts in a given order, optionally filtered. Filters left {@code null} do not apply.
+ *
+ * @param createdFrom    only posts created at or after this instant
+ * @param createdTo      only posts created before this instant
+ * @param titlePrefix    only posts whose title starts with this, case-sensitively
+ * @param afterCreatedAt creation time of the last post of the previous page when ordering by creation time;
+ *                       {@code null} for the first page
+ * @param afterTitle     title of the last post of the previous page when ordering by title; {@code null} for
+ *                       the first page
+ * @param afterId        id of the last post of the previous page; 0 for the first page when ordering by id
+ * @param limit          maximum number of posts
+ */
+public record PostListing(Order order, Instant createdFrom, Instant createdTo, String titlePrefix,
+                          Instant afterCreatedAt, String afterTitle, int afterId, int limit) {
+
+    /**
+     * Listing orders. Posts with the same creation time or title are ordered by id; posts without a title
+     * are left out of the title order.
+     */
+    public enum Order {
+        ID, CREATED_AT, CREATED_AT_DESC, TITLE
+    }
+
+    public boolean isFiltered() {
+        return createdFrom != null || createdTo != null || titlePrefix != null;
+    }
+}
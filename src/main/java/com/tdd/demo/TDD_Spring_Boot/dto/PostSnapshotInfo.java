@@ -0,0 +1,6 @@
+package com.tdd.demo.TDD_Spring_Boot.dto;
+
+/**
+ * Size of the snapshot posts are currently served from.
+ */
+public record PostSnapshotInfo(int posts, long bytes) {}
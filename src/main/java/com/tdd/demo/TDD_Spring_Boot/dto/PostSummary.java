@@ -0,0 +1,9 @@
+package com.tdd.demo.TDD_Spring_Boot.dto;
+
+import java.time.Instant;
+
+/**
+ * A post without its description, for listings that do not ask for it. Read through a projection, so the
+ * description column is never selected.
+ */
+public record PostSummary(Integer id, String title, Long version, Instant createdAt, Instant updatedAt) {}
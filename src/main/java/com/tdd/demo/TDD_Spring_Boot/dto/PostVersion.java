@@ -0,0 +1,8 @@
+package com.tdd.demo.TDD_Spring_Boot.dto;
+
+import java.time.Instant;
+
+/**
+ * Just enough of a post to answer conditional requests without loading its content.
+ */
+public record PostVersion(long version, Instant updatedAt) {}
@@ -0,0 +1,15 @@
+package com.tdd.demo.TDD_Spring_Boot.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Posts looked up by id, in the order the ids were asked for. Ids without a post are listed in
+ * {@code missing} rather than failing the lookup; an id asked for twice is answered once.
+ */
+public record PostsById<T>(List<T> posts, List<Integer> missing) {
+
+    public <R> PostsById<R> map(Function<T, R> render) {
+        return new PostsById<>(posts.stream().map(render).toList(), missing);
+    }
+}
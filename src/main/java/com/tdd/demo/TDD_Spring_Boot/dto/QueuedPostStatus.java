@@ -0,0 +1,28 @@
+package com.tdd.demo.TDD_Spring_Boot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * Where a post accepted by the write-behind queue stands; {@code id} is set once it has been inserted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record QueuedPostStatus(UUID ticket, Status status, Integer id, String error) {
+
+    public enum Status {
+        PENDING, CREATED, FAILED
+    }
+
+    public static QueuedPostStatus pending(UUID ticket) {
+        return new QueuedPostStatus(ticket, Status.PENDING, null, null);
+    }
+
+    public static QueuedPostStatus created(UUID ticket, int id) {
+        return new QueuedPostStatus(ticket, Status.CREATED, id, null);
+    }
+
+    public static QueuedPostStatus failed(UUID ticket, String error) {
+        return new QueuedPostStatus(ticket, Status.FAILED, null, error);
+    }
+}
@@ -0,0 +1,7 @@
+package com.tdd.demo.TDD_Spring_Boot.exception;
+
+public class ChangeFeedExpiredException extends RuntimeException {
+    public ChangeFeedExpiredException(String message) {
+        super(message);
+    }
+}
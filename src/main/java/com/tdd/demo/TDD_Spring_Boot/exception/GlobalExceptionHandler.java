@@ -1,20 +1,102 @@
 package com.tdd.demo.TDD_Spring_Boot.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Every handled exception is counted as {@code posts.errors}, tagged with a coarse {@code type} and the
+ * exception class. Counters go to the global registry so the handler also works in web slices without metrics.
+ * <p>
+ * A missing post is answered with one prebuilt RFC 9457 problem document. It names no id, so every miss
+ * shares the same bytes and nothing is serialized per request. An unknown write-behind ticket is a different
+ * resource and gets its own message.
+ */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final Counter NOT_FOUND_ERRORS = errorCounter("not_found", PostNotFoundException.class);
+    private static final Counter QUEUED_NOT_FOUND_ERRORS = errorCounter("not_found", QueuedPostNotFoundException.class);
+    private static final Counter INVALID_CURSOR_ERRORS = errorCounter("invalid_cursor", InvalidCursorException.class);
+    private static final Counter INVALID_PAGE_ERRORS = errorCounter("invalid_page", InvalidPageException.class);
+    private static final Counter INVALID_FIELDS_ERRORS = errorCounter("invalid_fields", InvalidFieldsException.class);
+    private static final Counter VERSION_CONFLICT_ERRORS = errorCounter("precondition_failed", PostVersionConflictException.class);
+    private static final Counter QUEUE_FULL_ERRORS = errorCounter("too_many_requests", WriteQueueFullException.class);
+    private static final Counter FEED_EXPIRED_ERRORS = errorCounter("gone", ChangeFeedExpiredException.class);
+
+    private static final ResponseEntity<byte[]> NOT_FOUND = ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+            .body("""
+                    {"type":"about:blank","title":"Not Found","status":404,"detail":"The requested post does not exist."}"""
+                    .getBytes(StandardCharsets.UTF_8));
+
     @ExceptionHandler(PostNotFoundException.class)
-    public ResponseEntity<String> handleRuntimeException(PostNotFoundException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    public ResponseEntity<byte[]> handleNotFound(PostNotFoundException ex) {
+        NOT_FOUND_ERRORS.increment();
+        return NOT_FOUND;
+    }
+
+    @ExceptionHandler(QueuedPostNotFoundException.class)
+    public ResponseEntity<String> handleQueuedPostNotFound(QueuedPostNotFoundException ex) {
+        QUEUED_NOT_FOUND_ERRORS.increment();
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> handleInvalidCursor(InvalidCursorException ex) {
+        INVALID_CURSOR_ERRORS.increment();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidPageException.class)
+    public ResponseEntity<String> handleInvalidPage(InvalidPageException ex) {
+        INVALID_PAGE_ERRORS.increment();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<String> handleInvalidFields(InvalidFieldsException ex) {
+        INVALID_FIELDS_ERRORS.increment();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(PostVersionConflictException.class)
+    public ResponseEntity<String> handleVersionConflict(PostVersionConflictException ex) {
+        VERSION_CONFLICT_ERRORS.increment();
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(WriteQueueFullException.class)
+    public ResponseEntity<String> handleQueueFull(WriteQueueFullException ex) {
+        QUEUE_FULL_ERRORS.increment();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ChangeFeedExpiredException.class)
+    public ResponseEntity<String> handleFeedExpired(ChangeFeedExpiredException ex) {
+        FEED_EXPIRED_ERRORS.increment();
+        return ResponseEntity.status(HttpStatus.GONE).body(ex.getMessage());
     }
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleGeneralRuntime(RuntimeException ex) {
+        errorCounter("runtime", ex.getClass()).increment();
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
     }
+
+    private static Counter errorCounter(String type, Class<?> exceptionType) {
+        return Counter.builder("posts.errors")
+                .tag("type", type)
+                .tag("exception", exceptionType.getSimpleName())
+                .register(Metrics.globalRegistry);
+    }
 }
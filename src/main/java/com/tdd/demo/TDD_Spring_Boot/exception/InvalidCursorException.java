@@ -0,0 +1,7 @@
+package com.tdd.demo.TDD_Spring_Boot.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.tdd.demo.TDD_Spring_Boot.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
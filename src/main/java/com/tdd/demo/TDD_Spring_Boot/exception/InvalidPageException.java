@@ -0,0 +1,7 @@
+package com.tdd.demo.TDD_Spring_Boot.exception;
+
+public class InvalidPageException extends RuntimeException {
+    public InvalidPageException(String message) {
+        super(message);
+    }
+}
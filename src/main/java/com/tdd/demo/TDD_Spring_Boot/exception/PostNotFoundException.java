@@ -1,7 +1,26 @@
 package com.tdd.demo.TDD_Spring_Boot.exception;
 
+/**
+ * Misses are routine, since clients probe random ids, so this exception captures no stack trace and only
+ * builds its message when someone reads it. Its response body is the same for every miss.
+ */
 public class PostNotFoundException extends RuntimeException {
+
+    private final int id;
+
+    public PostNotFoundException(int id) {
+        super(null, null, false, false);
+        this.id = id;
+    }
+
     public PostNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.id = -1;
+    }
+
+    @Override
+    public String getMessage() {
+        String message = super.getMessage();
+        return message != null ? message : "Post with id " + id + " not found!";
     }
 }
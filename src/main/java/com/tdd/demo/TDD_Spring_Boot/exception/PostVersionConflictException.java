@@ -0,0 +1,7 @@
+package com.tdd.demo.TDD_Spring_Boot.exception;
+
+public class PostVersionConflictException extends RuntimeException {
+    public PostVersionConflictException(String message) {
+        super(message);
+    }
+}
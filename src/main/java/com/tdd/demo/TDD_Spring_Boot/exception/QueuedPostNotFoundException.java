@@ -0,0 +1,9 @@
+package com.tdd.demo.TDD_Spring_Boot.exception;
+
+import java.util.UUID;
+
+public class QueuedPostNotFoundException extends RuntimeException {
+    public QueuedPostNotFoundException(UUID ticket) {
+        super("Queued post " + ticket + " not found!");
+    }
+}
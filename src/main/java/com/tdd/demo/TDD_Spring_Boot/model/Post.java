@@ -1,19 +1,48 @@
 package com.tdd.demo.TDD_Spring_Boot.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Listings are served by the indexes below, which the Flyway migrations create: time-ordered pages by
+ * {@code createdAt} or {@code updatedAt} and title-prefix filters are range scans instead of full scans.
+ */
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "posts_created_at", columnList = "created_at, id"),
+        @Index(name = "posts_updated_at", columnList = "updated_at, id"),
+        @Index(name = "posts_title", columnList = "title, id")
+})
 public class Post {
 
+    // Ids are handed out in blocks without a round trip per insert, which lets Hibernate batch them.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PostId
     private Integer id;
 
     private String title;
 
+    // Unbounded; reads that do not need it go through PostSummary so the column is never selected.
+    @Lob
     private String description;
 
+    @Version
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+
+    // Set once when the post is first stored; clients cannot supply it.
+    @Column(nullable = false, updatable = false)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant createdAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Instant updatedAt;
+
     public Post() {}
 
     public Post(Integer id, String title, String description) {
@@ -45,4 +74,40 @@ public class Post {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @PrePersist
+    void create() {
+        touch();
+        createdAt = updatedAt;
+    }
+
+    // Microseconds are all the timestamp columns keep, and the instance should match what a read returns.
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
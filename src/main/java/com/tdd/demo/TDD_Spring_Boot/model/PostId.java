@@ -0,0 +1,17 @@
+package com.tdd.demo.TDD_Spring_Boot.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Post ids come from {@link PostIdGenerator}.
+ */
+@IdGeneratorType(PostIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PostId {
+}
@@ -0,0 +1,109 @@
+package com.tdd.demo.TDD_Spring_Boot.model;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out post ids from blocks of {@value #BLOCK_SIZE}, each reserved with one call to the
+ * {@code posts_seq} sequence: value {@code n} reserves {@code n} to {@code n + 49}, so inserts only go to
+ * the database for their id once per block, and JDBC batching keeps working.
+ * <p>
+ * Callers that need to know a post's id before it is persisted can {@link #reserve} one for it; the
+ * sharding layer does so for every insert, before the transaction has picked a shard, and the block is
+ * then read from the data source's first shard, which keeps ids unique over all of them. Otherwise the
+ * block is read on the connection of the session being flushed: taking a second connection from the
+ * same pool would deadlock once every pooled connection belongs to a writer waiting here for an id.
+ * <p>
+ * Blocks are read outside the monitor, so a reservation waiting for a pooled connection never holds up
+ * the sessions flushing here. When several callers run out at once each reads a block and all but the
+ * first to come back are dropped, a gap in the ids like the ones the sequence has anyway.
+ * Created by Hibernate through the Spring bean container, which supplies the data source.
+ */
+public class PostIdGenerator implements BeforeExecutionGenerator {
+
+    /** Must match the increment of {@code posts_seq}. */
+    static final int BLOCK_SIZE = 50;
+
+    private final transient DataSource dataSource;
+    private final transient Map<Object, Integer> reserved = new ConcurrentHashMap<>();
+    private int next;
+    private int blockEnd;
+
+    public PostIdGenerator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Picks the id {@code post} gets when it is persisted, or returns the one already picked for it. Must be
+     * {@link #release released} if the post ends up not being persisted.
+     */
+    public int reserve(Post post) {
+        return reserved.computeIfAbsent(post, key -> nextId(null));
+    }
+
+    public void release(Post post) {
+        reserved.remove(post);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        Integer id = reserved.remove(owner);
+        return id != null ? id : nextId(session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection());
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    /**
+     * @param connection connection to read the next block on; {@code null} to take one from the data source
+     */
+    private int nextId(Connection connection) {
+        synchronized (this) {
+            if (next < blockEnd) {
+                return next++;
+            }
+        }
+        int block;
+        try {
+            block = connection != null ? reserveBlock(connection) : reserveBlock();
+        } catch (SQLException ex) {
+            throw new HibernateException("Could not reserve a block of post ids", ex);
+        }
+        synchronized (this) {
+            if (next == blockEnd) {
+                next = block;
+                blockEnd = block + BLOCK_SIZE;
+            }
+            return next++;
+        }
+    }
+
+    private int reserveBlock() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return reserveBlock(connection);
+        }
+    }
+
+    private static int reserveBlock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select next value for posts_seq")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
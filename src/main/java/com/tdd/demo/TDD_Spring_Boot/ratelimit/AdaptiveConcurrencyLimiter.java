@@ -0,0 +1,84 @@
+package com.tdd.demo.TDD_Spring_Boot.ratelimit;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the requests in flight on a route and adapts the cap to observed latency (additive increase,
+ * multiplicative decrease): every request that completes within the latency threshold while the route
+ * is busy raises the limit by one, a slower one cuts it by a tenth. Cuts are spaced at least one threshold
+ * apart, so a burst of slow responses that were all admitted under the old limit only counts once.
+ * Requests beyond the limit are turned away instead of queueing inside the server.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong();
+    private final LongSupplier clock;
+
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, Duration latencyThreshold) {
+        this(minLimit, maxLimit, latencyThreshold, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, Duration latencyThreshold, LongSupplier clock) {
+        this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = new AtomicInteger(maxLimit);
+        this.clock = clock;
+        this.lastDecrease.set(clock.getAsLong() - latencyThresholdNanos);
+    }
+
+    /**
+     * Admits a request if the route is below its current limit. The permit must be released exactly once.
+     */
+    public Optional<Permit> tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Optional.of(new Permit(clock.getAsLong(), current + 1));
+            }
+        }
+    }
+
+    public void release(Permit permit) {
+        inFlight.decrementAndGet();
+        long now = clock.getAsLong();
+        if (now - permit.startNanos() > latencyThresholdNanos) {
+            long last = lastDecrease.get();
+            if (now - last > latencyThresholdNanos && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(l -> Math.max(minLimit, (int) (l * BACKOFF)));
+            }
+        } else if (permit.inFlight() * 2 >= limit.get()) {
+            // Only grow while the limit is actually being used, or it drifts up during quiet periods.
+            limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @param startNanos when the request was admitted
+     * @param inFlight   requests in flight including this one when it was admitted
+     */
+    public record Permit(long startNanos, int inFlight) {
+    }
+}
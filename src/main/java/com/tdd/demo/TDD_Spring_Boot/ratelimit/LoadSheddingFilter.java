@@ -0,0 +1,197 @@
+package com.tdd.demo.TDD_Spring_Boot.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control per route: a client over its rate gets 429, a route over its in-flight limit gets 503,
+ * both with {@code Retry-After}. Rejections never reach the dispatcher, so they cost no worker time beyond
+ * this filter. Runs after the observation filter, so rejected requests still show up in
+ * {@code http.server.requests}.
+ * <p>
+ * Rejections are counted as {@code posts.ratelimit.rejected} tagged with the route and the reason; the
+ * current limit and in-flight count of each route are the {@code posts.concurrency.limit} and
+ * {@code posts.concurrency.in.flight} gauges.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter implements Ordered {
+
+    private final String clientHeader;
+    private final List<GuardedRoute> routes;
+
+    public LoadSheddingFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.clientHeader = properties.clientHeader();
+        this.routes = properties.routes().stream()
+                .map(route -> new GuardedRoute(route, properties, meterRegistry))
+                .toList();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        GuardedRoute route = match(request);
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (route.buckets != null) {
+            long waitNanos = route.buckets.tryAcquire(client(request));
+            if (waitNanos > 0) {
+                route.rateRejected.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Rate limit exceeded for " + route.name);
+                return;
+            }
+        }
+        if (route.concurrency == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<AdaptiveConcurrencyLimiter.Permit> permit = route.concurrency.tryAcquire();
+        if (permit.isEmpty()) {
+            route.concurrencyRejected.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 0, "Too many requests in flight for " + route.name);
+            return;
+        }
+        Runnable release = releaseOnce(route.concurrency, permit.get());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streamed responses finish on another thread; the permit is held until they do.
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private GuardedRoute match(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (GuardedRoute route : routes) {
+            if (route.matches(request.getMethod(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private String client(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client != null && !client.isBlank() ? client : request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String message)
+            throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+
+    private static Runnable releaseOnce(AdaptiveConcurrencyLimiter limiter, AdaptiveConcurrencyLimiter.Permit permit) {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(permit);
+            }
+        };
+    }
+
+    private static final class GuardedRoute {
+
+        private final String name;
+        private final PathPattern pattern;
+        private final List<String> methods;
+        private final TokenBucketLimiter buckets;
+        private final AdaptiveConcurrencyLimiter concurrency;
+        private final Counter rateRejected;
+        private final Counter concurrencyRejected;
+
+        GuardedRoute(RateLimitProperties.Route route, RateLimitProperties properties, MeterRegistry meterRegistry) {
+            this.name = route.name();
+            this.pattern = PathPatternParser.defaultInstance.parse(route.pattern());
+            this.methods = route.methods();
+            this.buckets = route.rate() > 0
+                    ? new TokenBucketLimiter(route.rate(), route.burst(), properties.clientIdleTimeout(), properties.maxClients())
+                    : null;
+            this.concurrency = route.maxConcurrency() > 0
+                    ? new AdaptiveConcurrencyLimiter(route.minConcurrency(), route.maxConcurrency(), route.latencyThreshold())
+                    : null;
+            this.rateRejected = rejectedCounter(meterRegistry, "rate");
+            this.concurrencyRejected = rejectedCounter(meterRegistry, "concurrency");
+            if (concurrency != null) {
+                Gauge.builder("posts.concurrency.limit", concurrency, AdaptiveConcurrencyLimiter::getLimit)
+                        .description("Requests currently allowed in flight on the route")
+                        .tag("route", name)
+                        .register(meterRegistry);
+                Gauge.builder("posts.concurrency.in.flight", concurrency, AdaptiveConcurrencyLimiter::getInFlight)
+                        .description("Requests in flight on the route")
+                        .tag("route", name)
+                        .register(meterRegistry);
+            }
+        }
+
+        boolean matches(String method, PathContainer path) {
+            return (methods.isEmpty() || methods.stream().anyMatch(method::equalsIgnoreCase)) && pattern.matches(path);
+        }
+
+        private Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+            return Counter.builder("posts.ratelimit.rejected")
+                    .description("Requests turned away before reaching the controller")
+                    .tag("route", name)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.tdd.demo.TDD_Spring_Boot.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Admission control in front of the API, under {@code posts.rate-limit}.
+ *
+ * @param clientHeader      request header naming the client, set by the gateway; the remote address is used without it
+ * @param clientIdleTimeout how long a client's bucket is kept after its last request
+ * @param maxClients        buckets kept per route; the least recently used client is forgotten beyond this
+ * @param routes            routes in matching order; the first route whose pattern and method match applies
+ */
+@ConfigurationProperties("posts.rate-limit")
+public record RateLimitProperties(@DefaultValue("X-Client-Id") String clientHeader,
+                                  @DefaultValue("10m") Duration clientIdleTimeout,
+                                  @DefaultValue("100000") long maxClients,
+                                  @DefaultValue List<Route> routes) {
+
+    /**
+     * @param name               tag of the route's metrics
+     * @param pattern            path pattern, e.g. {@code /api/v1/post/**}
+     * @param methods            HTTP methods the route covers; all when empty
+     * @param rate               requests per second each client may make; 0 disables the rate limit
+     * @param burst              requests a client may make at once after being idle
+     * @param maxConcurrency     upper bound of the adaptive in-flight limit; 0 disables load shedding
+     * @param minConcurrency     lower bound of the adaptive in-flight limit
+     * @param latencyThreshold   requests slower than this shrink the in-flight limit
+     */
+    public record Route(String name,
+                        String pattern,
+                        @DefaultValue List<String> methods,
+                        @DefaultValue("0") double rate,
+                        @DefaultValue("1") int burst,
+                        @DefaultValue("0") int maxConcurrency,
+                        @DefaultValue("1") int minConcurrency,
+                        @DefaultValue("500ms") Duration latencyThreshold) {
+    }
+}
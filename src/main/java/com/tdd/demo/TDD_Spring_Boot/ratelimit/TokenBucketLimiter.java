@@ -0,0 +1,57 @@
+package com.tdd.demo.TDD_Spring_Boot.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per client, kept as the generic cell rate algorithm: instead of a token count and a refill
+ * timestamp each bucket is a single "theoretical arrival time", so a request is admitted with one CAS on
+ * an {@link AtomicLong} and no lock. Clients only contend with their own requests, never with each other.
+ * A bucket that has been idle long enough to be full again carries no state and is simply evicted.
+ */
+public class TokenBucketLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier clock;
+
+    public TokenBucketLimiter(double rate, int burst, Duration idleTimeout, long maxClients) {
+        this(rate, burst, idleTimeout, maxClients, System::nanoTime);
+    }
+
+    TokenBucketLimiter(double rate, int burst, Duration idleTimeout, long maxClients, LongSupplier clock) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / rate);
+        this.burstNanos = emissionIntervalNanos * Math.max(1, burst);
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxClients)
+                .build();
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token from the client's bucket.
+     *
+     * @return 0 when admitted, otherwise how many nanoseconds until the next token is available
+     */
+    public long tryAcquire(String client) {
+        AtomicLong arrival = buckets.get(client, key -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = clock.getAsLong();
+            long current = arrival.get();
+            long next = (current == Long.MIN_VALUE || current - now < 0 ? now : current) + emissionIntervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.tdd.demo.TDD_Spring_Boot.repository;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostListing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL of a {@link PostListing} page, written so that the indexes declared on
+ * {@link com.tdd.demo.TDD_Spring_Boot.model.Post} answer it with a range scan. Every condition compares
+ * an indexed column with a bound value: the title prefix becomes a half-open range rather than a
+ * {@code like}, and the keyset conditions on {@code (created_at, id)} and {@code (title, id)} repeat
+ * their leading bound on the first column alone, which the planner can use to start the scan.
+ */
+record PostListingQuery(String sql, Map<String, Object> parameters) {
+
+    static final String POST_COLUMNS = "id, title, description, version, created_at, updated_at";
+    static final String SUMMARY_COLUMNS = "id, title, version, created_at, updated_at";
+
+    static PostListingQuery of(PostListing listing, String columns) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (listing.createdFrom() != null) {
+            conditions.add("created_at >= :createdFrom");
+            parameters.put("createdFrom", listing.createdFrom());
+        }
+        if (listing.createdTo() != null) {
+            conditions.add("created_at < :createdTo");
+            parameters.put("createdTo", listing.createdTo());
+        }
+        if (listing.titlePrefix() != null && !listing.titlePrefix().isEmpty()) {
+            conditions.add("title >= :titleFrom");
+            parameters.put("titleFrom", listing.titlePrefix());
+            String titleTo = successor(listing.titlePrefix());
+            if (titleTo != null) {
+                conditions.add("title < :titleTo");
+                parameters.put("titleTo", titleTo);
+            }
+        }
+
+        String orderBy = switch (listing.order()) {
+            case ID -> {
+                conditions.add("id > :afterId");
+                parameters.put("afterId", listing.afterId());
+                yield "id";
+            }
+            case CREATED_AT -> {
+                if (listing.afterCreatedAt() != null) {
+                    conditions.add("created_at >= :afterCreatedAt and (created_at > :afterCreatedAt or id > :afterId)");
+                    parameters.put("afterCreatedAt", listing.afterCreatedAt());
+                    parameters.put("afterId", listing.afterId());
+                }
+                yield "created_at, id";
+            }
+            case CREATED_AT_DESC -> {
+                if (listing.afterCreatedAt() != null) {
+                    conditions.add("created_at <= :afterCreatedAt and (created_at < :afterCreatedAt or id < :afterId)");
+                    parameters.put("afterCreatedAt", listing.afterCreatedAt());
+                    parameters.put("afterId", listing.afterId());
+                }
+                yield "created_at desc, id desc";
+            }
+            case TITLE -> {
+                conditions.add("title is not null");
+                if (listing.afterTitle() != null) {
+                    conditions.add("title >= :afterTitle and (title > :afterTitle or id > :afterId)");
+                    parameters.put("afterTitle", listing.afterTitle());
+                    parameters.put("afterId", listing.afterId());
+                }
+                yield "title, id";
+            }
+        };
+        parameters.put("limit", listing.limit());
+
+        String where = conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+        return new PostListingQuery("select " + columns + " from posts" + where + " order by " + orderBy + " limit :limit",
+                parameters);
+    }
+
+    /**
+     * The smallest string greater than every string starting with {@code prefix}, or {@code null} if there
+     * is none because the prefix only consists of {@link Character#MAX_VALUE}.
+     */
+    private static String successor(String prefix) {
+        StringBuilder next = new StringBuilder(prefix);
+        while (!next.isEmpty()) {
+            char last = next.charAt(next.length() - 1);
+            if (last < Character.MAX_VALUE) {
+                next.setCharAt(next.length() - 1, (char) (last + 1));
+                return next.toString();
+            }
+            next.setLength(next.length() - 1);
+        }
+        return null;
+    }
+}
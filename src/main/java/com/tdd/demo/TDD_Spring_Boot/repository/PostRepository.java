@@ -1,9 +1,85 @@
 package com.tdd.demo.TDD_Spring_Boot.repository;
 
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostVersion;
 import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
+
+/**
+ * Single-row reads go through the {@value com.tdd.demo.TDD_Spring_Boot.config.CacheConfig#POSTS_CACHE} cache.
+ * An empty result is cached as {@code null}, so repeated lookups of missing ids stay off the database too.
+ * Every write method below evicts the posts it changed. The cache manager is transaction-aware, see
+ * {@link com.tdd.demo.TDD_Spring_Boot.config.CacheConfig}, so inside a transaction the eviction waits for the
+ * commit and nobody reads a write through the cache that may still roll back. A reader that loaded the old
+ * row before the commit can still cache it after the eviction; the cache's expiry bounds how long that lasts.
+ */
 @Repository
-public interface PostRepository extends JpaRepository<Post,Integer> {
+public interface PostRepository extends JpaRepository<Post,Integer>, PostRepositoryCustom {
+
+    @Transactional(readOnly = true)
+    List<Post> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+    @Transactional(readOnly = true)
+    List<PostSummary> findSummariesByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+    List<Post> findAllByOrderByUpdatedAtDesc(Limit limit);
+
+    @Query("select p.id from Post p where p.id in :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
+
+    @Override
+    @CacheEvict(cacheNames = POSTS_CACHE, key = "#p0")
+    Optional<Post> updateReturning(int id, String title, String description, Long expectedVersion);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.tdd.demo.TDD_Spring_Boot.dto.PostVersion(p.version, p.updatedAt) from Post p where p.id = :id")
+    Optional<PostVersion> findVersionById(int id);
+
+    /**
+     * Deletes without loading the row first.
+     *
+     * @return the number of deleted rows, 0 when no post has that id
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @CacheEvict(cacheNames = POSTS_CACHE, key = "#p0")
+    @Query("delete from Post p where p.id = :id")
+    int deletePostById(int id);
+
+    @Override
+    @Cacheable(cacheNames = POSTS_CACHE, key = "#p0")
+    Optional<Post> findById(Integer id);
+
+    @Override
+    @CacheEvict(cacheNames = POSTS_CACHE, key = "#result.id")
+    <S extends Post> S save(S entity);
+
+    @Override
+    @CacheEvict(cacheNames = POSTS_CACHE, key = "#p0.id")
+    void delete(Post entity);
+
+    @Override
+    @CacheEvict(cacheNames = POSTS_CACHE, key = "#p0")
+    void deleteById(Integer id);
+
+    @Override
+    @CacheEvict(cacheNames = POSTS_CACHE, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = POSTS_CACHE, allEntries = true)
+    void deleteAllInBatch();
 }
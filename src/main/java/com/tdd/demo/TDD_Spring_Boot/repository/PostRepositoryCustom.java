@@ -0,0 +1,45 @@
+package com.tdd.demo.TDD_Spring_Boot.repository;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostListing;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface PostRepositoryCustom {
+
+    /**
+     * Walks every post in id order over a forward-only JDBC cursor, handing each row to {@code consumer}
+     * and detaching it right after so the persistence context never grows with the table.
+     * Must be called inside a transaction.
+     */
+    void scrollAll(Consumer<Post> consumer);
+
+    /**
+     * Like {@link #scrollAll} but selects only the columns of {@link PostSummary}.
+     */
+    void scrollAllSummaries(Consumer<PostSummary> consumer);
+
+    /**
+     * One page of posts in the order and with the filters of {@code listing}, read with a range scan
+     * over one of the indexes declared on {@link Post}. The returned posts are detached.
+     */
+    List<Post> findPage(PostListing listing);
+
+    /**
+     * Like {@link #findPage} but selects only the columns of {@link PostSummary}.
+     */
+    List<PostSummary> findSummaryPage(PostListing listing);
+
+    /**
+     * Updates title and description and reads the new row back in the same statement through the
+     * database's data-change delta table, so there is neither a select before nor after the update.
+     * The version is bumped and {@code updatedAt} set as part of the same statement.
+     * When {@code expectedVersion} is not null the row is only updated if its version still matches.
+     * Empty when no row was updated. The returned post is detached; an instance already loaded into
+     * the current persistence context is not refreshed.
+     */
+    Optional<Post> updateReturning(int id, String title, String description, Long expectedVersion);
+}
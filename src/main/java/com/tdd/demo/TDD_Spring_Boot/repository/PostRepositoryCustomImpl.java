@@ -0,0 +1,130 @@
+package com.tdd.demo.TDD_Spring_Boot.repository;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostListing;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import jakarta.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+class PostRepositoryCustomImpl implements PostRepositoryCustom {
+
+    private static final String UPDATE_RETURNING = """
+            select id, title, description, version, created_at, updated_at from final table (
+                update posts
+                set title = :title, description = :description, version = version + 1, updated_at = :updatedAt
+                where id = :id%s
+            )""";
+    private static final String UPDATE = UPDATE_RETURNING.formatted("");
+    private static final String UPDATE_IF_VERSION = UPDATE_RETURNING.formatted(" and version = :version");
+
+    private final EntityManager entityManager;
+    private final int fetchSize;
+
+    PostRepositoryCustomImpl(EntityManager entityManager,
+                             @Value("${posts.stream.fetch-size:500}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void scrollAll(Consumer<Post> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults<Post> results = session
+                .createSelectionQuery("from Post p order by p.id", Post.class)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Post post = results.get();
+                consumer.accept(post);
+                session.detach(post);
+            }
+        }
+    }
+
+    @Override
+    public void scrollAllSummaries(Consumer<PostSummary> consumer) {
+        // Constructor results are not entities, so there is nothing to detach.
+        try (ScrollableResults<PostSummary> results = entityManager.unwrap(Session.class)
+                .createSelectionQuery("""
+                        select new com.tdd.demo.TDD_Spring_Boot.dto.PostSummary(p.id, p.title, p.version, p.createdAt, p.updatedAt)
+                        from Post p order by p.id""", PostSummary.class)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(results.get());
+            }
+        }
+    }
+
+    @Override
+    public List<Post> findPage(PostListing listing) {
+        PostListingQuery listingQuery = PostListingQuery.of(listing, PostListingQuery.POST_COLUMNS);
+        NativeQuery<Object[]> query = entityManager.unwrap(Session.class)
+                .createNativeQuery(listingQuery.sql(), Object[].class)
+                .addScalar("id", Integer.class)
+                .addScalar("title", String.class)
+                .addScalar("description", String.class)
+                .addScalar("version", Long.class)
+                .addScalar("created_at", Instant.class)
+                .addScalar("updated_at", Instant.class);
+        listingQuery.parameters().forEach(query::setParameter);
+        return query.getResultList().stream().map(PostRepositoryCustomImpl::toPost).toList();
+    }
+
+    @Override
+    public List<PostSummary> findSummaryPage(PostListing listing) {
+        PostListingQuery listingQuery = PostListingQuery.of(listing, PostListingQuery.SUMMARY_COLUMNS);
+        NativeQuery<Object[]> query = entityManager.unwrap(Session.class)
+                .createNativeQuery(listingQuery.sql(), Object[].class)
+                .addScalar("id", Integer.class)
+                .addScalar("title", String.class)
+                .addScalar("version", Long.class)
+                .addScalar("created_at", Instant.class)
+                .addScalar("updated_at", Instant.class);
+        listingQuery.parameters().forEach(query::setParameter);
+        return query.getResultList().stream()
+                .map(row -> new PostSummary((Integer) row[0], (String) row[1], (Long) row[2], (Instant) row[3], (Instant) row[4]))
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public Optional<Post> updateReturning(int id, String title, String description, Long expectedVersion) {
+        NativeQuery<Object[]> query = entityManager.unwrap(Session.class)
+                .createNativeQuery(expectedVersion == null ? UPDATE : UPDATE_IF_VERSION, Object[].class)
+                .addScalar("id", Integer.class)
+                .addScalar("title", String.class)
+                .addScalar("description", String.class)
+                .addScalar("version", Long.class)
+                .addScalar("created_at", Instant.class)
+                .addScalar("updated_at", Instant.class)
+                .setParameter("id", id)
+                .setParameter("title", title)
+                .setParameter("description", description)
+                .setParameter("updatedAt", Instant.now().truncatedTo(ChronoUnit.MICROS));
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        return query.getResultList().stream().findFirst().map(PostRepositoryCustomImpl::toPost);
+    }
+
+    private static Post toPost(Object[] row) {
+        Post post = new Post((Integer) row[0], (String) row[1], (String) row[2]);
+        post.setVersion((Long) row[3]);
+        post.setCreatedAt((Instant) row[4]);
+        post.setUpdatedAt((Instant) row[5]);
+        return post;
+    }
+}
@@ -0,0 +1,18 @@
+package com.tdd.demo.TDD_Spring_Boot.repository;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+
+/**
+ * Where the sharding layer puts a post, for callers that group their writes so that each transaction
+ * stays on one shard. Only present with {@code posts.sharding.enabled}.
+ */
+public interface PostShards {
+
+    int shardFor(int id);
+
+    /**
+     * Shard {@code post} is written to. A post that is not persisted yet has its id reserved here, and
+     * saving it through {@link PostRepository} takes that id and releases the reservation.
+     */
+    int shardFor(Post post);
+}
@@ -0,0 +1,160 @@
+package com.tdd.demo.TDD_Spring_Boot.repository;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostVersion;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangedEvent;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * R2DBC counterpart of {@link PostRepository} for the reactive runtime. It reads and writes the table
+ * Hibernate maps, bypassing the persistence context and the post cache, so callers are expected to
+ * evict cache entries for the posts they change.
+ */
+@Repository
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactivePostRepository {
+
+    private static final String COLUMNS = "id, title, description, version, created_at, updated_at";
+    private static final String SELECT = "select " + COLUMNS + " from posts";
+    // Each insert draws its own value from the pooled sequence Hibernate allocates blocks of 50 from.
+    // Using that value as the id can never collide with a block handed to Hibernate, at the cost of
+    // skipping the rest of the block.
+    private static final String INSERT_RETURNING = """
+            select %s from final table (
+                insert into posts (id, title, description, version, created_at, updated_at)
+                values (next value for posts_seq, :title, :description, 0, :updatedAt, :updatedAt)
+            )""".formatted(COLUMNS);
+    private static final String UPDATE_RETURNING = """
+            select %s from final table (
+                update posts
+                set title = :title, description = :description, version = version + 1, updated_at = :updatedAt
+                where id = :id%%s
+            )""".formatted(COLUMNS);
+
+    // The change takes the sequence number the counter update just handed out; the counter row stays locked
+    // until the surrounding transaction ends, as on the JDBC side.
+    private static final String APPEND_CHANGE = """
+            insert into post_changes (seq, post_id, type, version, changed_at)
+            select last_seq, :postId, :type, :version, :changedAt from post_change_counter where id = 1""";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactivePostRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * All posts in id order. Rows are only pulled from the database as fast as the subscriber requests them.
+     */
+    public Flux<Post> findAll() {
+        return databaseClient.sql(SELECT + " order by id")
+                .map(ReactivePostRepository::toPost)
+                .all();
+    }
+
+    public Flux<Post> findPage(int afterId, int limit) {
+        return databaseClient.sql(SELECT + " where id > :afterId order by id limit :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactivePostRepository::toPost)
+                .all();
+    }
+
+    public Mono<Post> findById(int id) {
+        return databaseClient.sql(SELECT + " where id = :id")
+                .bind("id", id)
+                .map(ReactivePostRepository::toPost)
+                .one();
+    }
+
+    public Mono<PostVersion> findVersionById(int id) {
+        return databaseClient.sql("select version, updated_at from posts where id = :id")
+                .bind("id", id)
+                .map(row -> new PostVersion(row.get("version", Long.class), updatedAt(row)))
+                .one();
+    }
+
+    public Mono<Post> insert(String title, String description) {
+        GenericExecuteSpec spec = databaseClient.sql(INSERT_RETURNING);
+        return bindContent(spec, title, description)
+                .map(ReactivePostRepository::toPost)
+                .one();
+    }
+
+    /**
+     * Same contract as {@link PostRepositoryCustom#updateReturning}.
+     */
+    public Mono<Post> updateReturning(int id, String title, String description, Long expectedVersion) {
+        GenericExecuteSpec spec = databaseClient
+                .sql(UPDATE_RETURNING.formatted(expectedVersion == null ? "" : " and version = :version"))
+                .bind("id", id);
+        if (expectedVersion != null) {
+            spec = spec.bind("version", expectedVersion);
+        }
+        return bindContent(spec, title, description)
+                .map(ReactivePostRepository::toPost)
+                .one();
+    }
+
+    public Mono<Long> deleteById(int id) {
+        return databaseClient.sql("delete from posts where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Appends {@code change} to the change log. Meant to run in the transaction of the write it describes,
+     * so the change is logged exactly when the write commits.
+     */
+    public Mono<Void> appendChange(PostChangedEvent change) {
+        GenericExecuteSpec insert = databaseClient.sql(APPEND_CHANGE)
+                .bind("postId", change.postId())
+                .bind("type", change.type().name())
+                .bind("changedAt", OffsetDateTime.now(ZoneOffset.UTC));
+        insert = change.post() == null
+                ? insert.bindNull("version", Long.class)
+                : insert.bind("version", change.post().getVersion());
+        return databaseClient.sql("update post_change_counter set last_seq = last_seq + 1 where id = 1")
+                .fetch()
+                .rowsUpdated()
+                .then(insert.fetch().rowsUpdated())
+                .then();
+    }
+
+    private static GenericExecuteSpec bindContent(GenericExecuteSpec spec, String title, String description) {
+        spec = title == null ? spec.bindNull("title", String.class) : spec.bind("title", title);
+        spec = description == null ? spec.bindNull("description", String.class) : spec.bind("description", description);
+        // Microseconds, as Post keeps them, so a post's updatedAt does not depend on which stack wrote it.
+        return spec.bind("updatedAt", OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MICROS));
+    }
+
+    private static Post toPost(Readable row) {
+        Post post = new Post(row.get("id", Integer.class), row.get("title", String.class), row.get("description", String.class));
+        post.setVersion(row.get("version", Long.class));
+        post.setCreatedAt(instant(row, "created_at"));
+        post.setUpdatedAt(updatedAt(row));
+        return post;
+    }
+
+    private static Instant updatedAt(Readable row) {
+        return instant(row, "updated_at");
+    }
+
+    private static Instant instant(Readable row, String column) {
+        OffsetDateTime value = row.get(column, OffsetDateTime.class);
+        return value == null ? null : value.toInstant();
+    }
+}
@@ -0,0 +1,376 @@
+package com.tdd.demo.TDD_Spring_Boot.repository;
+
+import com.tdd.demo.TDD_Spring_Boot.datasource.ShardRing;
+import com.tdd.demo.TDD_Spring_Boot.datasource.ShardRoutingDataSource;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostListing;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.model.PostIdGenerator;
+import jakarta.persistence.EntityManagerFactory;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The sharding layer under {@link PostRepository}, enabled with {@code posts.sharding.enabled}.
+ * Methods taking a post or an id run on the shard the {@link ShardRing} assigns to the id; a new post has
+ * its id reserved first, from the sequence on the first shard, so that its shard is known before the
+ * insert. Methods that span shards are sent to every shard they touch in parallel and the results
+ * gathered: lists are merged in the order the method promises and cut to its {@link Limit}, counts are
+ * added up, and the {@code scrollAll} walks go page by page in id order over all shards.
+ * Any other method is refused, and every method declared by {@link PostRepository} or
+ * {@link PostRepositoryCustom} must have a route: one without fails the start-up rather than its first call.
+ * <p>
+ * A transaction has one connection and can therefore only reach one shard: the first shard it touches
+ * stays bound until it completes, and touching another one fails. Reads across shards run on other
+ * threads, each in a transaction of its own. That is fine for read-only callers, but a read-write
+ * transaction would get back entities its persistence context does not manage, so it is refused too.
+ * Writes across shards outside a transaction commit shard by shard, not atomically. Callers writing many
+ * posts in one transaction group them by {@link PostShards} first.
+ */
+@Aspect
+public class ShardedPostRepositoryAspect implements PostShards, DisposableBean {
+
+    /** The methods {@link #route} has a case for. */
+    private static final Set<String> ROUTED = Set.of(
+            "findById", "existsById", "findVersionById", "updateReturning", "deletePostById", "deleteById",
+            "delete", "save", "saveAndFlush", "saveAll", "findAllById", "findExistingIds", "deleteAllById",
+            "deleteAllByIdInBatch", "findAll", "findByIdGreaterThanOrderByIdAsc",
+            "findSummariesByIdGreaterThanOrderByIdAsc", "findAllByOrderByUpdatedAtDesc", "findPage",
+            "findSummaryPage", "count", "deleteAll", "deleteAllInBatch", "scrollAll", "scrollAllSummaries");
+
+    private static final Comparator<Post> BY_ID = Comparator.comparing(Post::getId);
+    private static final Comparator<PostSummary> SUMMARY_BY_ID = Comparator.comparing(PostSummary::id);
+    private static final Comparator<Post> BY_UPDATED_AT_DESC =
+            Comparator.comparing(Post::getUpdatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final ShardRing ring;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final ObjectProvider<PostRepository> postRepository;
+    private final int fetchSize;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile PostIdGenerator idGenerator;
+
+    public ShardedPostRepositoryAspect(ShardRing ring, ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                       ObjectProvider<PostRepository> postRepository, int fetchSize) {
+        this.ring = ring;
+        this.entityManagerFactory = entityManagerFactory;
+        this.postRepository = postRepository;
+        this.fetchSize = fetchSize;
+        requireRoutes(PostRepository.class, PostRepositoryCustom.class);
+    }
+
+    @Around("execution(* com.tdd.demo.TDD_Spring_Boot.repository.PostRepository.*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object[] args = joinPoint.getArgs();
+        String method = joinPoint.getSignature().getName();
+        return switch (method) {
+            case "findById", "existsById", "findVersionById", "updateReturning", "deletePostById", "deleteById" ->
+                    onShard(ring.shardFor((Integer) args[0]), joinPoint, args);
+            case "delete" -> onShard(ring.shardFor(((Post) args[0]).getId()), joinPoint, args);
+            case "save", "saveAndFlush" -> save(joinPoint, (Post) args[0]);
+            case "saveAll" -> saveAll(joinPoint, args);
+            case "findAllById", "findExistingIds" -> readByIds(joinPoint, args);
+            case "deleteAllById", "deleteAllByIdInBatch" -> write(joinPoint, byShard(ids(args[0])));
+            case "findAll" -> args.length == 0
+                    ? merge(read(joinPoint, everyShard(args)), BY_ID, Integer.MAX_VALUE)
+                    : unsupported(method);
+            case "findByIdGreaterThanOrderByIdAsc" -> merge(read(joinPoint, everyShard(args)), BY_ID, max(args));
+            case "findSummariesByIdGreaterThanOrderByIdAsc" ->
+                    merge(read(joinPoint, everyShard(args)), SUMMARY_BY_ID, max(args));
+            case "findAllByOrderByUpdatedAtDesc" -> merge(read(joinPoint, everyShard(args)), BY_UPDATED_AT_DESC, max(args));
+            case "findPage" -> merge(read(joinPoint, everyShard(args)),
+                    listingOrder((PostListing) args[0], Post::getCreatedAt, Post::getTitle, Post::getId),
+                    ((PostListing) args[0]).limit());
+            case "findSummaryPage" -> merge(read(joinPoint, everyShard(args)),
+                    listingOrder((PostListing) args[0], PostSummary::createdAt, PostSummary::title, PostSummary::id),
+                    ((PostListing) args[0]).limit());
+            case "count" -> read(joinPoint, everyShard(args)).stream().mapToLong(Long.class::cast).sum();
+            case "deleteAll", "deleteAllInBatch" -> args.length == 0 ? write(joinPoint, everyShard(args)) : unsupported(method);
+            case "scrollAll" -> scroll(castConsumer(args[0]),
+                    (afterId, limit) -> postRepository.getObject().findByIdGreaterThanOrderByIdAsc(afterId, limit),
+                    Post::getId);
+            case "scrollAllSummaries" -> scroll(castConsumer(args[0]),
+                    (afterId, limit) -> postRepository.getObject().findSummariesByIdGreaterThanOrderByIdAsc(afterId, limit),
+                    PostSummary::id);
+            default -> unsupported(method);
+        };
+    }
+
+    @Override
+    public int shardFor(int id) {
+        return ring.shardFor(id);
+    }
+
+    @Override
+    public int shardFor(Post post) {
+        return ring.shardFor(post.getId() != null && post.getVersion() != null ? post.getId() : reserveId(post));
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+
+    private Object save(ProceedingJoinPoint joinPoint, Post post) throws Throwable {
+        try {
+            return onShard(shardFor(post), joinPoint, new Object[] {post});
+        } finally {
+            idGenerator().release(post);
+        }
+    }
+
+    private Object saveAll(ProceedingJoinPoint joinPoint, Object[] args) throws Throwable {
+        List<Post> posts = new ArrayList<>();
+        ((Iterable<?>) args[0]).forEach(post -> posts.add((Post) post));
+        Map<Integer, List<Post>> postsByShard = new TreeMap<>();
+        try {
+            for (Post post : posts) {
+                postsByShard.computeIfAbsent(shardFor(post), shard -> new ArrayList<>()).add(post);
+            }
+            Map<Integer, Object[]> argsByShard = new TreeMap<>();
+            postsByShard.forEach((shard, shardPosts) -> argsByShard.put(shard, new Object[] {shardPosts}));
+            List<Object> results = writeAndCollect(joinPoint, argsByShard);
+
+            // Hand the saved posts back in the order they came in.
+            Map<Post, Post> saved = new IdentityHashMap<>();
+            Iterator<Object> shardResults = results.iterator();
+            for (List<Post> shardPosts : postsByShard.values()) {
+                Iterator<?> savedPosts = ((Iterable<?>) shardResults.next()).iterator();
+                shardPosts.forEach(post -> saved.put(post, (Post) savedPosts.next()));
+            }
+            return posts.stream().map(saved::get).toList();
+        } finally {
+            posts.forEach(idGenerator()::release);
+        }
+    }
+
+    private Object readByIds(ProceedingJoinPoint joinPoint, Object[] args) throws Throwable {
+        Map<Integer, Object[]> argsByShard = byShard(ids(args[0]));
+        if (argsByShard.isEmpty()) {
+            return joinPoint.proceed(args);
+        }
+        if (argsByShard.size() == 1) {
+            Map.Entry<Integer, Object[]> only = argsByShard.entrySet().iterator().next();
+            return onShard(only.getKey(), joinPoint, only.getValue());
+        }
+        return read(joinPoint, argsByShard).stream().flatMap(result -> stream((Iterable<?>) result)).toList();
+    }
+
+    private <T> Object scroll(Consumer<? super T> consumer, BiFunction<Integer, Limit, List<T>> page,
+                              Function<T, Integer> idOf) {
+        int afterId = 0;
+        List<T> rows;
+        do {
+            rows = page.apply(afterId, Limit.of(fetchSize));
+            rows.forEach(consumer);
+            if (!rows.isEmpty()) {
+                afterId = idOf.apply(rows.getLast());
+            }
+        } while (rows.size() == fetchSize);
+        return null;
+    }
+
+    /**
+     * Runs the call on {@code shard}; inside a transaction the shard stays bound until it completes.
+     */
+    private Object onShard(int shard, ProceedingJoinPoint joinPoint, Object[] args) throws Throwable {
+        Integer bound = ShardRoutingDataSource.currentShard();
+        if (bound != null) {
+            if (bound != shard) {
+                throw new IllegalStateException("Transaction is on shard " + bound + " and cannot reach shard " + shard);
+            }
+            return joinPoint.proceed(args);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            ShardRoutingDataSource.Binding binding = ShardRoutingDataSource.bind(shard);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    binding.close();
+                }
+            });
+            return joinPoint.proceed(args);
+        }
+        try (ShardRoutingDataSource.Binding ignored = ShardRoutingDataSource.bind(shard)) {
+            return joinPoint.proceed(args);
+        }
+    }
+
+    private List<Object> read(ProceedingJoinPoint joinPoint, Map<Integer, Object[]> argsByShard) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("Reads across shards need a read-only transaction or none");
+        }
+        return scatter(joinPoint, argsByShard);
+    }
+
+    private Object write(ProceedingJoinPoint joinPoint, Map<Integer, Object[]> argsByShard) throws Throwable {
+        writeAndCollect(joinPoint, argsByShard);
+        return null;
+    }
+
+    private List<Object> writeAndCollect(ProceedingJoinPoint joinPoint, Map<Integer, Object[]> argsByShard) throws Throwable {
+        if (argsByShard.isEmpty()) {
+            return List.of();
+        }
+        if (argsByShard.size() == 1) {
+            Map.Entry<Integer, Object[]> only = argsByShard.entrySet().iterator().next();
+            return Collections.singletonList(onShard(only.getKey(), joinPoint, only.getValue()));
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("A transaction cannot write to several shards");
+        }
+        return scatter(joinPoint, argsByShard);
+    }
+
+    /**
+     * Calls every shard in parallel, each on a thread of its own and so outside any transaction of the caller.
+     */
+    private List<Object> scatter(ProceedingJoinPoint joinPoint, Map<Integer, Object[]> argsByShard) {
+        List<Future<Object>> calls = new ArrayList<>(argsByShard.size());
+        argsByShard.forEach((shard, args) -> calls.add(executor.submit(() -> {
+            try (ShardRoutingDataSource.Binding ignored = ShardRoutingDataSource.bind(shard)) {
+                return joinPoint.proceed(args);
+            } catch (Exception | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new UndeclaredThrowableException(ex);
+            }
+        })));
+
+        List<Object> results = new ArrayList<>(calls.size());
+        try {
+            for (Future<Object> call : calls) {
+                results.add(call.get());
+            }
+        } catch (ExecutionException ex) {
+            calls.forEach(call -> call.cancel(true));
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new UndeclaredThrowableException(ex.getCause());
+        } catch (InterruptedException ex) {
+            calls.forEach(call -> call.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", ex);
+        }
+        return results;
+    }
+
+    private int reserveId(Post post) {
+        // The first shard holds the sequence every id is reserved from.
+        try (ShardRoutingDataSource.Binding ignored = ShardRoutingDataSource.bind(0)) {
+            return idGenerator().reserve(post);
+        }
+    }
+
+    private PostIdGenerator idGenerator() {
+        if (idGenerator == null) {
+            idGenerator = (PostIdGenerator) entityManagerFactory.getObject()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getMappingMetamodel()
+                    .getEntityDescriptor(Post.class)
+                    .getGenerator();
+        }
+        return idGenerator;
+    }
+
+    private Map<Integer, Object[]> everyShard(Object[] args) {
+        Map<Integer, Object[]> argsByShard = new TreeMap<>();
+        for (int shard = 0; shard < ring.shardCount(); shard++) {
+            argsByShard.put(shard, args);
+        }
+        return argsByShard;
+    }
+
+    private Map<Integer, Object[]> byShard(List<Integer> ids) {
+        Map<Integer, List<Integer>> idsByShard = new TreeMap<>();
+        for (Integer id : ids) {
+            idsByShard.computeIfAbsent(ring.shardFor(id), shard -> new ArrayList<>()).add(id);
+        }
+        Map<Integer, Object[]> argsByShard = new TreeMap<>();
+        idsByShard.forEach((shard, shardIds) -> argsByShard.put(shard, new Object[] {shardIds}));
+        return argsByShard;
+    }
+
+    private static List<Integer> ids(Object ids) {
+        return stream((Iterable<?>) ids).map(Integer.class::cast).toList();
+    }
+
+    private static Stream<?> stream(Iterable<?> iterable) {
+        return StreamSupport.stream(iterable.spliterator(), false);
+    }
+
+    private static void requireRoutes(Class<?>... repositories) {
+        List<String> unrouted = Arrays.stream(repositories)
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods()))
+                .filter(method -> !method.isSynthetic() && !Modifier.isStatic(method.getModifiers()))
+                .map(Method::getName)
+                .filter(name -> !ROUTED.contains(name))
+                .distinct()
+                .sorted()
+                .toList();
+        if (!unrouted.isEmpty()) {
+            throw new IllegalStateException("No shard routing for PostRepository methods " + unrouted);
+        }
+    }
+
+    private static Object unsupported(String method) {
+        throw new UnsupportedOperationException("PostRepository." + method + " is not supported on sharded posts");
+    }
+
+    private static int max(Object[] args) {
+        Limit limit = (Limit) args[args.length - 1];
+        return limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+    }
+
+    private static <T> Comparator<T> listingOrder(PostListing listing, Function<T, Instant> createdAt,
+                                                  Function<T, String> title, Function<T, Integer> id) {
+        Comparator<T> byId = Comparator.comparing(id);
+        return switch (listing.order()) {
+            case ID -> byId;
+            case CREATED_AT -> Comparator.comparing(createdAt).thenComparing(byId);
+            case CREATED_AT_DESC -> Comparator.comparing(createdAt).thenComparing(byId).reversed();
+            case TITLE -> Comparator.comparing(title).thenComparing(byId);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> merge(List<Object> results, Comparator<? super T> order, int max) {
+        return results.stream()
+                .flatMap(result -> ((List<T>) result).stream())
+                .sorted(order)
+                .limit(max)
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Object> castConsumer(Object consumer) {
+        return (Consumer<Object>) consumer;
+    }
+}
@@ -0,0 +1,45 @@
+package com.tdd.demo.TDD_Spring_Boot.repository;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.SessionEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times JDBC statement and batch execution per Hibernate session as {@code posts.db.statements}.
+ * Hibernate instantiates one listener per session ({@code hibernate.session.events.auto}), so it cannot be
+ * a Spring bean; it records to the global registry that Spring Boot binds its registry to.
+ */
+public class StatementMetricsSessionListener implements SessionEventListener {
+
+    private static final Timer STATEMENTS = Timer.builder("posts.db.statements")
+            .tag("kind", "statement")
+            .register(Metrics.globalRegistry);
+    private static final Timer BATCHES = Timer.builder("posts.db.statements")
+            .tag("kind", "batch")
+            .register(Metrics.globalRegistry);
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        STATEMENTS.record(System.nanoTime() - statementStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        BATCHES.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+    }
+}
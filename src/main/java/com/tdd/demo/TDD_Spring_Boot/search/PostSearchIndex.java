@@ -0,0 +1,233 @@
+package com.tdd.demo.TDD_Spring_Boot.search;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Embedded Lucene inverted index over post titles and descriptions. Only the id is stored; callers
+ * load the posts themselves. Searches see writes within about a second (near-real-time reopen).
+ * <p>
+ * Changes reach the index directory with a Lucene commit after every {@code posts.search.commit-every}
+ * of them, and on shutdown. Each commit records the latest {@code updatedAt} indexed so far, which
+ * {@link #indexedUpTo()} reads back after a restart, so changes lost in a crash can be told apart from an
+ * index that is up to date.
+ * <p>
+ * {@link #rebuild} rewrites the index in place rather than emptying it first: every document carries the
+ * generation of the rebuild that wrote it, and only once all posts have been written again are the documents
+ * of other generations deleted. Searches meanwhile see each post in its old or its new state, never a
+ * missing one, and a crash midway leaves the last commit of the previous index on disk.
+ */
+@Component
+public class PostSearchIndex {
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(TITLE, 2f, DESCRIPTION, 1f);
+    private static final String GENERATION = "generation";
+    private static final String INDEXED_UP_TO = "indexedUpTo";
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    private final int commitEvery;
+    private final AtomicInteger uncommitted = new AtomicInteger();
+    private final AtomicReference<Instant> indexedUpTo = new AtomicReference<>();
+    private volatile long generation;
+    private volatile boolean rebuilding;
+
+    public PostSearchIndex(@Value("${posts.search.index-path:}") String indexPath,
+                           @Value("${posts.search.commit-every:1000}") int commitEvery) throws IOException {
+        this.directory = indexPath.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexPath));
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.commitEvery = commitEvery;
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            commitData.forEach(entry -> {
+                switch (entry.getKey()) {
+                    case GENERATION -> generation = Long.parseLong(entry.getValue());
+                    case INDEXED_UP_TO -> indexedUpTo.set(Instant.parse(entry.getValue()));
+                    default -> {}
+                }
+            });
+        }
+        this.searcherManager = new SearcherManager(writer, null);
+        this.reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager, 1.0, 0.05);
+        this.reopenThread.setName("post-search-reopen");
+        this.reopenThread.setDaemon(true);
+        this.reopenThread.start();
+    }
+
+    public void index(Post post) {
+        try {
+            writer.updateDocument(idTerm(post.getId()), toDocument(post, generation));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (post.getUpdatedAt() != null) {
+            indexedUpTo.accumulateAndGet(post.getUpdatedAt(), (a, b) -> a == null || b.isAfter(a) ? b : a);
+        }
+        changed();
+    }
+
+    public void delete(int id) {
+        try {
+            writer.deleteDocuments(idTerm(id));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        changed();
+    }
+
+    /**
+     * Replaces the index with the posts {@code allPosts} feeds to its consumer, then commits. Changes indexed
+     * concurrently belong to the new generation and are kept. Rebuilds run one at a time.
+     */
+    public synchronized void rebuild(Consumer<Consumer<Post>> allPosts) {
+        long next = generation + 1;
+        generation = next;
+        rebuilding = true;
+        try {
+            allPosts.accept(this::index);
+            // Also matches documents written before generations were recorded.
+            writer.deleteDocuments(new BooleanQuery.Builder()
+                    .add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER)
+                    .add(LongPoint.newExactQuery(GENERATION, next), BooleanClause.Occur.MUST_NOT)
+                    .build());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            rebuilding = false;
+        }
+        commit();
+    }
+
+    public int count() {
+        return writer.getDocStats().numDocs;
+    }
+
+    /**
+     * @return the latest {@code updatedAt} of the posts indexed so far, {@code null} for an index that has
+     *         none; after a restart, the latest one that had been committed
+     */
+    public Instant indexedUpTo() {
+        return indexedUpTo.get();
+    }
+
+    /**
+     * Makes everything indexed so far visible to searches and durable on disk.
+     */
+    public void commit() {
+        uncommitted.set(0);
+        // Read before committing: everything indexed up to this instant is part of the commit.
+        Instant upTo = indexedUpTo.get();
+        Map<String, String> commitData = new HashMap<>();
+        commitData.put(GENERATION, Long.toString(generation));
+        if (upTo != null) {
+            commitData.put(INDEXED_UP_TO, upTo.toString());
+        }
+        try {
+            writer.setLiveCommitData(commitData.entrySet());
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Ranked search; {@code text} uses the lenient simple query syntax (terms, "phrases", +, -, |, *).
+     */
+    public SearchHits search(String text, int offset, int limit) {
+        Query query = new SimpleQueryParser(analyzer, FIELD_WEIGHTS).parse(text);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, offset + limit);
+                StoredFields storedFields = searcher.storedFields();
+                List<Integer> ids = new ArrayList<>(limit);
+                for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+                    Document document = storedFields.document(topDocs.scoreDocs[i].doc, Set.of(ID));
+                    ids.add(Integer.parseInt(document.get(ID)));
+                }
+                return new SearchHits(topDocs.totalHits.value(), ids);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        reopenThread.close();
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private void changed() {
+        // A rebuild commits once it is complete; committing halfway would record its marks too early.
+        if (uncommitted.incrementAndGet() >= commitEvery && !rebuilding) {
+            commit();
+        }
+    }
+
+    private static Term idTerm(int id) {
+        return new Term(ID, Integer.toString(id));
+    }
+
+    private static Document toDocument(Post post, long generation) {
+        Document document = new Document();
+        document.add(new StringField(ID, Integer.toString(post.getId()), Field.Store.YES));
+        document.add(new LongPoint(GENERATION, generation));
+        if (post.getTitle() != null) {
+            document.add(new TextField(TITLE, post.getTitle(), Field.Store.NO));
+        }
+        if (post.getDescription() != null) {
+            document.add(new TextField(DESCRIPTION, post.getDescription(), Field.Store.NO));
+        }
+        return document;
+    }
+
+    /**
+     * @param totalHits number of matching posts, exact up to Lucene's counting threshold and a lower bound beyond
+     * @param ids       ids of the requested page, best match first
+     */
+    public record SearchHits(long totalHits, List<Integer> ids) {}
+}
@@ -0,0 +1,90 @@
+package com.tdd.demo.TDD_Spring_Boot.search;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangedEvent;
+import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps {@link PostSearchIndex} in step with the posts table and answers searches from it.
+ * The index follows committed writes through {@link PostChangedEvent}s and is rebuilt from the
+ * database on start-up, before the application reports ready, whenever its size does not match the table or the table holds a post updated after
+ * the latest one the index has committed, which is how changes lost in a crash show up. A write that
+ * commits after a later-stamped one and is lost with it goes unnoticed until the next rebuild.
+ */
+@Service
+@Timed("posts.service")
+public class PostSearchService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PostSearchService.class);
+
+    private final PostSearchIndex searchIndex;
+    private final PostService postService;
+    private final PostRepository postRepository;
+
+    public PostSearchService(PostSearchIndex searchIndex, PostService postService, PostRepository postRepository) {
+        this.searchIndex = searchIndex;
+        this.postService = postService;
+        this.postRepository = postRepository;
+    }
+
+    public SearchResult search(String text, int page, int size) {
+        PostSearchIndex.SearchHits hits = searchIndex.search(text, page * size, size);
+        Map<Integer, Post> postsById = new HashMap<>();
+        postRepository.findAllById(hits.ids()).forEach(post -> postsById.put(post.getId(), post));
+        // Keep Lucene's ranking; ids deleted since the last index refresh simply drop out.
+        List<Post> posts = hits.ids().stream().map(postsById::get).filter(Objects::nonNull).toList();
+        return new SearchResult(hits.totalHits(), posts);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        if (event.type() == PostChangedEvent.Type.DELETED) {
+            searchIndex.delete(event.postId());
+        } else {
+            searchIndex.index(event.post());
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuildIfStale();
+    }
+
+    public void rebuildIfStale() {
+        long rows = postRepository.count();
+        Instant lastUpdate = postRepository.findAllByOrderByUpdatedAtDesc(Limit.of(1)).stream()
+                .findFirst()
+                .map(Post::getUpdatedAt)
+                .orElse(null);
+        Instant indexedUpTo = searchIndex.indexedUpTo();
+        if (searchIndex.count() != rows || lastUpdate != null && (indexedUpTo == null || lastUpdate.isAfter(indexedUpTo))) {
+            log.info("Rebuilding post search index: {} documents indexed up to {}, {} posts stored updated up to {}",
+                    searchIndex.count(), indexedUpTo, rows, lastUpdate);
+            rebuild();
+        }
+    }
+
+    /**
+     * Rewrites the index from the database; searches keep being answered from it meanwhile.
+     */
+    public void rebuild() {
+        searchIndex.rebuild(postService::streamAllPosts);
+    }
+
+    public record SearchResult(long totalHits, List<Post> posts) {}
+}
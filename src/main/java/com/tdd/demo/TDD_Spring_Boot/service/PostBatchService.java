@@ -0,0 +1,228 @@
+package com.tdd.demo.TDD_Spring_Boot.service;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.BatchItemResult;
+import com.tdd.demo.TDD_Spring_Boot.dto.BatchItemResult.Status;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostShards;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.StreamSupport;
+
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
+
+/**
+ * Bulk writes for ingestion jobs. Input is consumed lazily and written in chunks of
+ * {@code posts.batch.chunk-size} items, one transaction per chunk, so Hibernate can group the
+ * statements into JDBC batches. If a chunk fails it is replayed item by item to pin down which
+ * elements are broken; every element gets its own {@link BatchItemResult}.
+ * <p>
+ * With sharding a transaction can only write to one shard, so each chunk is split by {@link PostShards}
+ * first, new posts having their ids reserved for that, and written in one transaction per shard.
+ */
+@Service
+@Timed("posts.service")
+public class PostBatchService {
+
+    private final PostRepository postRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache postCache;
+    private final int chunkSize;
+    private final PostShards postShards;
+
+    public PostBatchService(PostRepository postRepository, EntityManager entityManager,
+                            PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                            CacheManager cacheManager, @Value("${posts.batch.chunk-size:500}") int chunkSize,
+                            ObjectProvider<PostShards> postShards) {
+        this.postRepository = postRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.postCache = cacheManager.getCache(POSTS_CACHE);
+        this.chunkSize = chunkSize;
+        this.postShards = postShards.getIfAvailable();
+    }
+
+    public List<BatchItemResult> createPosts(Iterator<Post> posts) {
+        // Always insert: client-supplied ids are ignored so a create can never overwrite an existing row.
+        Iterator<Post> newPosts = StreamSupport.stream(Spliterators.spliteratorUnknownSize(posts, 0), false)
+                .map(PostBatchService::copy)
+                .iterator();
+        return process(newPosts, Post::getId, PostShards::shardFor, this::insertChunk);
+    }
+
+    public List<BatchItemResult> updatePosts(Iterator<Post> posts) {
+        return process(posts, Post::getId, (shards, post) -> shardFor(shards, post.getId()), this::updateChunk);
+    }
+
+    public List<BatchItemResult> deletePosts(Iterator<Integer> ids) {
+        return process(ids, Function.identity(), PostBatchService::shardFor, this::deleteChunk);
+    }
+
+    private List<BatchItemResult> insertChunk(List<Post> chunk, int offset) {
+        // A post left over from a failed attempt kept the id and version it got then; insert a fresh copy.
+        List<Post> created = postRepository.saveAll(chunk.stream()
+                .map(post -> post.getVersion() == null ? post : copy(post))
+                .toList());
+
+        List<BatchItemResult> results = new ArrayList<>(created.size());
+        for (int i = 0; i < created.size(); i++) {
+            Post post = created.get(i);
+            eventPublisher.publishEvent(PostChangedEvent.created(post));
+            results.add(BatchItemResult.of(offset + i, post.getId(), Status.CREATED));
+        }
+        return results;
+    }
+
+    private List<BatchItemResult> updateChunk(List<Post> chunk, int offset) {
+        List<Integer> ids = chunk.stream().map(Post::getId).filter(Objects::nonNull).toList();
+        Map<Integer, Post> existing = new HashMap<>();
+        postRepository.findAllById(ids).forEach(post -> existing.put(post.getId(), post));
+
+        List<BatchItemResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Post update = chunk.get(i);
+            Post post = update.getId() == null ? null : existing.get(update.getId());
+            if (post == null) {
+                results.add(BatchItemResult.of(offset + i, update.getId(), Status.NOT_FOUND));
+            } else {
+                post.setTitle(update.getTitle());
+                post.setDescription(update.getDescription());
+                eventPublisher.publishEvent(PostChangedEvent.updated(post));
+                results.add(BatchItemResult.of(offset + i, post.getId(), Status.UPDATED));
+            }
+        }
+        return results;
+    }
+
+    private List<BatchItemResult> deleteChunk(List<Integer> chunk, int offset) {
+        Set<Integer> existing = new HashSet<>(postRepository.findExistingIds(
+                chunk.stream().filter(Objects::nonNull).toList()));
+        postRepository.deleteAllByIdInBatch(existing);
+
+        List<BatchItemResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Integer id = chunk.get(i);
+            if (existing.contains(id)) {
+                eventPublisher.publishEvent(PostChangedEvent.deleted(id));
+                results.add(BatchItemResult.of(offset + i, id, Status.DELETED));
+            } else {
+                results.add(BatchItemResult.of(offset + i, id, Status.NOT_FOUND));
+            }
+        }
+        return results;
+    }
+
+    private <T> List<BatchItemResult> process(Iterator<T> items, Function<T, Integer> idOf,
+                                              ToIntBiFunction<PostShards, T> shardOf, ChunkWriter<T> writer) {
+        List<BatchItemResult> results = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        int offset = 0;
+        while (items.hasNext()) {
+            chunk.add(items.next());
+            if (chunk.size() == chunkSize) {
+                results.addAll(writeChunkByShard(chunk, offset, idOf, shardOf, writer));
+                offset += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(writeChunkByShard(chunk, offset, idOf, shardOf, writer));
+        }
+        return results;
+    }
+
+    /**
+     * Writes each shard's part of the chunk as a chunk of its own and puts the results back in input order.
+     */
+    private <T> List<BatchItemResult> writeChunkByShard(List<T> chunk, int offset, Function<T, Integer> idOf,
+                                                        ToIntBiFunction<PostShards, T> shardOf, ChunkWriter<T> writer) {
+        if (postShards == null) {
+            return writeChunk(chunk, offset, idOf, writer);
+        }
+        Map<Integer, List<Integer>> indexesByShard = new TreeMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            indexesByShard.computeIfAbsent(shardOf.applyAsInt(postShards, chunk.get(i)), shard -> new ArrayList<>()).add(i);
+        }
+        if (indexesByShard.size() == 1) {
+            return writeChunk(chunk, offset, idOf, writer);
+        }
+        BatchItemResult[] results = new BatchItemResult[chunk.size()];
+        for (List<Integer> indexes : indexesByShard.values()) {
+            for (BatchItemResult result : writeChunk(indexes.stream().map(chunk::get).toList(), 0, idOf, writer)) {
+                int index = indexes.get(result.index());
+                results[index] = new BatchItemResult(offset + index, result.id(), result.status(), result.error());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private <T> List<BatchItemResult> writeChunk(List<T> chunk, int offset, Function<T, Integer> idOf,
+                                                 ChunkWriter<T> writer) {
+        try {
+            return writeInTransaction(chunk, offset, writer);
+        } catch (RuntimeException chunkFailure) {
+            List<BatchItemResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                T item = chunk.get(i);
+                try {
+                    results.addAll(writeInTransaction(List.of(item), offset + i, writer));
+                } catch (RuntimeException itemFailure) {
+                    String error = NestedExceptionUtils.getMostSpecificCause(itemFailure).getMessage();
+                    results.add(BatchItemResult.failed(offset + i, idOf.apply(item), error));
+                }
+            }
+            return results;
+        }
+    }
+
+    private <T> List<BatchItemResult> writeInTransaction(List<T> chunk, int offset, ChunkWriter<T> writer) {
+        List<BatchItemResult> results = transactionTemplate.execute(status -> {
+            List<BatchItemResult> written = writer.write(chunk, offset);
+            // Flush the JDBC batches now and drop the entities, otherwise an open-in-view
+            // persistence context keeps every row of the request in memory.
+            entityManager.flush();
+            entityManager.clear();
+            return written;
+        });
+
+        // Only touch the cache once the chunk is committed; new ids may have been negatively cached.
+        for (BatchItemResult result : results) {
+            if (result.id() != null && result.status() != Status.NOT_FOUND) {
+                postCache.evict(result.id());
+            }
+        }
+        return results;
+    }
+
+    private static Post copy(Post post) {
+        return new Post(null, post.getTitle(), post.getDescription());
+    }
+
+    /**
+     * Items without an id never reach the database, so any shard will do for them.
+     */
+    private static int shardFor(PostShards shards, Integer id) {
+        return id == null ? 0 : shards.shardFor(id);
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        List<BatchItemResult> write(List<T> chunk, int offset);
+    }
+}
@@ -0,0 +1,208 @@
+package com.tdd.demo.TDD_Spring_Boot.service;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostChange;
+import com.tdd.demo.TDD_Spring_Boot.exception.ChangeFeedExpiredException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes committed changes from the {@link PostChangeLog} to the consumers waiting on the feed. One reader
+ * thread serves every subscriber: it wakes up after each local commit, and every
+ * {@code posts.changes.poll-interval} to pick up commits made by other instances, reads the log once from
+ * the position of the subscriber furthest behind and hands each subscriber the part it has not seen yet.
+ * The cost of following the feed is therefore one indexed query per batch of changes, however many
+ * consumers there are. Changes older than {@code posts.changes.retention} are pruned.
+ */
+@Service
+@ConditionalOnBooleanProperty(name = "posts.sharding.enabled", havingValue = false, matchIfMissing = true)
+public class PostChangeFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PostChangeFeed.class);
+    private static final Duration PRUNE_INTERVAL = Duration.ofMinutes(10);
+
+    private final PostChangeLog changeLog;
+    private final int pageSize;
+    private final Duration pollInterval;
+    private final Duration retention;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean readPending = new AtomicBoolean();
+    private volatile ScheduledExecutorService reader;
+
+    public PostChangeFeed(PostChangeLog changeLog, MeterRegistry meterRegistry,
+                          @Value("${posts.changes.page-size:500}") int pageSize,
+                          @Value("${posts.changes.poll-interval:1s}") Duration pollInterval,
+                          @Value("${posts.changes.retention:7d}") Duration retention) {
+        this.changeLog = changeLog;
+        this.pageSize = pageSize;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+        changeLog.addCommitListener(this::changed);
+        Gauge.builder("posts.changes.subscribers", subscriptions, Set::size)
+                .description("Consumers currently waiting on the change feed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hands every change after {@code since} to {@code listener} as it is committed, starting with those
+     * already in the log, until the listener declines more or the subscription is cancelled.
+     */
+    public Subscription subscribe(long since, Listener listener) {
+        Subscription subscription = new Subscription(since, listener);
+        subscriptions.add(subscription);
+        changed();
+        return subscription;
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("posts-change-feed").daemon().factory());
+        executor.scheduleWithFixedDelay(this::changed, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::prune, 0, PRUNE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        reader = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = reader;
+        reader = null;
+        // Let open streams end before the web server waits for them to finish.
+        subscriptions.forEach(Subscription::close);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return reader != null;
+    }
+
+    private void changed() {
+        ScheduledExecutorService executor = reader;
+        if (executor == null || subscriptions.isEmpty() || !readPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                readPending.set(false);
+                deliver();
+            });
+        } catch (RejectedExecutionException ex) {
+            readPending.set(false);
+        }
+    }
+
+    private void deliver() {
+        while (true) {
+            long from = subscriptions.stream().mapToLong(s -> s.cursor).min().orElse(Long.MAX_VALUE);
+            if (from == Long.MAX_VALUE) {
+                return;
+            }
+            List<PostChange> changes;
+            try {
+                changes = changeLog.changesSince(from, pageSize);
+            } catch (ChangeFeedExpiredException ex) {
+                // Only a subscriber that fell behind the retention gets here; it has to start over.
+                subscriptions.stream().filter(s -> s.cursor == from).forEach(Subscription::close);
+                continue;
+            } catch (RuntimeException ex) {
+                log.warn("Reading the post change log failed, retrying in {}", pollInterval, ex);
+                return;
+            }
+            for (Subscription subscription : subscriptions) {
+                subscription.deliver(changes);
+            }
+            if (changes.size() < pageSize) {
+                return;
+            }
+        }
+    }
+
+    private void prune() {
+        try {
+            int pruned = changeLog.pruneBefore(Instant.now().minus(retention));
+            if (pruned > 0) {
+                log.debug("Pruned {} post changes older than {}", pruned, retention);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Pruning the post change log failed", ex);
+        }
+    }
+
+    public interface Listener {
+
+        /**
+         * Receives the next changes in feed order, never an empty list.
+         *
+         * @return whether to keep receiving changes
+         */
+        boolean onChanges(List<PostChange> changes);
+
+        /**
+         * Called when the feed ends the subscription: on shutdown, or when the subscriber fell so far behind
+         * that the changes it still needs were pruned.
+         */
+        default void onClose() {
+        }
+    }
+
+    public final class Subscription {
+
+        private final Listener listener;
+        private volatile long cursor;
+
+        private Subscription(long since, Listener listener) {
+            this.cursor = since;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            subscriptions.remove(this);
+        }
+
+        private void close() {
+            cancel();
+            listener.onClose();
+        }
+
+        private void deliver(List<PostChange> changes) {
+            int unseen = 0;
+            while (unseen < changes.size() && changes.get(unseen).seq() <= cursor) {
+                unseen++;
+            }
+            if (unseen == changes.size()) {
+                return;
+            }
+            List<PostChange> next = changes.subList(unseen, changes.size());
+            cursor = next.getLast().seq();
+            boolean more;
+            try {
+                more = listener.onChanges(next);
+            } catch (RuntimeException ex) {
+                log.debug("Dropping a change feed subscriber that failed", ex);
+                more = false;
+            }
+            if (!more) {
+                cancel();
+            }
+        }
+    }
+}
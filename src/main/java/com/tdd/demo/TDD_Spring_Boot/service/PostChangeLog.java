@@ -0,0 +1,169 @@
+package com.tdd.demo.TDD_Spring_Boot.service;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostChange;
+import com.tdd.demo.TDD_Spring_Boot.exception.ChangeFeedExpiredException;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Transactional outbox of post writes. Every {@link PostChangedEvent} is collected while its transaction
+ * runs and written to {@code post_changes} right before that transaction commits, so a change is in the
+ * log exactly when the write it describes is in the table. Sequence numbers come from a counter row that
+ * each writing transaction locks for the short time between appending and committing: commits are
+ * serialized only at that point, and in exchange a reader can never see seq n+1 before seq n.
+ * <p>
+ * The reactive stack has no JDBC transaction to join: it appends its changes in the R2DBC transaction of the
+ * write, see {@link com.tdd.demo.TDD_Spring_Boot.repository.ReactivePostRepository#appendChange}, and only
+ * publishes them, marked as logged, once that commits. Any other write without a transaction is appended in
+ * a transaction of its own right after it was made. A sharded log would need one counter over every shard,
+ * so with {@code posts.sharding.enabled} the log, the {@link PostChangeFeed} and its endpoint are left out.
+ */
+@Service
+@ConditionalOnBooleanProperty(name = "posts.sharding.enabled", havingValue = false, matchIfMissing = true)
+public class PostChangeLog {
+
+    private static final RowMapper<PostChange> CHANGE_MAPPER = (rs, rowNum) -> new PostChange(
+            rs.getLong("seq"), PostChangedEvent.Type.valueOf(rs.getString("type")), rs.getInt("post_id"),
+            rs.getObject("version", Long.class), rs.getObject("changed_at", OffsetDateTime.class).toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Runnable> commitListeners = new CopyOnWriteArrayList<>();
+
+    public PostChangeLog(DataSource dataSource, EntityManager entityManager,
+                         PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        if (event.logged()) {
+            committed();
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            pendingChanges().add(event);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> append(List.of(event)));
+        committed();
+    }
+
+    /**
+     * Changes after {@code since} in feed order, at most {@code limit} of them.
+     *
+     * @throws ChangeFeedExpiredException if changes right after {@code since} were already pruned
+     */
+    public List<PostChange> changesSince(long since, int limit) {
+        List<PostChange> changes = jdbcTemplate.query(
+                "select seq, post_id, type, version, changed_at from post_changes where seq > ? order by seq limit ?",
+                CHANGE_MAPPER, since, limit);
+        if (!changes.isEmpty() && changes.getFirst().seq() == since + 1) {
+            return changes;
+        }
+        Long oldest = jdbcTemplate.queryForObject(
+                "select coalesce((select min(seq) from post_changes), last_seq + 1) from post_change_counter where id = 1",
+                Long.class);
+        if (since + 1 < oldest) {
+            throw new ChangeFeedExpiredException("Changes after " + since + " are no longer kept; the oldest is "
+                    + oldest + ", read the posts again and follow the feed from there");
+        }
+        return changes;
+    }
+
+    /**
+     * Position of the last committed change; following the feed from here skips everything before it.
+     */
+    public long lastSeq() {
+        return jdbcTemplate.queryForObject("select last_seq from post_change_counter where id = 1", Long.class);
+    }
+
+    public int pruneBefore(Instant cutoff) {
+        return jdbcTemplate.update("delete from post_changes where changed_at < ?", Timestamp.from(cutoff));
+    }
+
+    /**
+     * Runs {@code listener} after every commit that appended changes, on the committing thread.
+     */
+    public void addCommitListener(Runnable listener) {
+        commitListeners.add(listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PostChangedEvent> pendingChanges() {
+        List<PostChangedEvent> pending = (List<PostChangedEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        List<PostChangedEvent> changes = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, changes);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Flush first so updated posts carry the version they are committed with.
+                entityManager.flush();
+                append(changes);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(PostChangeLog.this);
+                if (status == STATUS_COMMITTED) {
+                    committed();
+                }
+            }
+        });
+        return changes;
+    }
+
+    private void append(List<PostChangedEvent> changes) {
+        jdbcTemplate.update("update post_change_counter set last_seq = last_seq + ? where id = 1", changes.size());
+        long first = lastSeq() - changes.size() + 1;
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(
+                "insert into post_changes (seq, post_id, type, version, changed_at) values (?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PostChangedEvent change = changes.get(i);
+                        ps.setLong(1, first + i);
+                        ps.setInt(2, change.postId());
+                        ps.setString(3, change.type().name());
+                        ps.setObject(4, change.post() == null ? null : change.post().getVersion(), Types.BIGINT);
+                        ps.setTimestamp(5, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return changes.size();
+                    }
+                });
+    }
+
+    private void committed() {
+        commitListeners.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,31 @@
+package com.tdd.demo.TDD_Spring_Boot.service;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+
+/**
+ * Published for every successful write to a post, inside the writing transaction when there is one.
+ * {@code post} holds the new state and is {@code null} for deletions. {@code logged} is set when the writer
+ * already appended the change to the {@link PostChangeLog} in its own transaction.
+ */
+public record PostChangedEvent(Type type, int postId, Post post, boolean logged) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static PostChangedEvent created(Post post) {
+        return new PostChangedEvent(Type.CREATED, post.getId(), post, false);
+    }
+
+    public static PostChangedEvent updated(Post post) {
+        return new PostChangedEvent(Type.UPDATED, post.getId(), post, false);
+    }
+
+    public static PostChangedEvent deleted(int postId) {
+        return new PostChangedEvent(Type.DELETED, postId, null, false);
+    }
+
+    public PostChangedEvent asLogged() {
+        return new PostChangedEvent(type, postId, post, true);
+    }
+}
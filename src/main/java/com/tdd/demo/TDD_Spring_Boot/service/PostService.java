@@ -1,44 +1,271 @@
 package com.tdd.demo.TDD_Spring_Boot.service;
 
+import com.tdd.demo.TDD_Spring_Boot.datasource.ReplicaDataSource;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostListing;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostVersion;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostsById;
 import com.tdd.demo.TDD_Spring_Boot.exception.PostNotFoundException;
+import com.tdd.demo.TDD_Spring_Boot.exception.PostVersionConflictException;
 import com.tdd.demo.TDD_Spring_Boot.model.Post;
 import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.snapshot.PostSnapshot;
+import com.tdd.demo.TDD_Spring_Boot.snapshot.PostSnapshots;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
+
+/**
+ * Writes run in one transaction with their {@link PostChangedEvent}, so the {@link PostChangeLog} records
+ * exactly the writes that commit.
+ * <p>
+ * Lookups of one post read the post cache first. Only misses go on to the repository, and concurrent misses
+ * for the same post outside a transaction share one repository call through {@link SingleFlight}, so a burst
+ * of requests for one uncached post reaches the database once.
+ * Lookups of many posts at a time skip the single-post path and read whatever the cache lacks with one
+ * {@code in} query per {@code posts.lookups.chunk-size} ids.
+ * <p>
+ * In snapshot mode, see {@link PostSnapshots}, lookups by id, pages in id order and reads of all posts are
+ * answered from the memory-mapped snapshot without a transaction; those methods are not transactional
+ * themselves and leave the transaction to the repository call they fall back to. Sorted or filtered listings
+ * still go to the database, which the snapshot has no index for.
+ */
 @Service
+@Timed("posts.service")
 public class PostService {
     private final PostRepository postRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<Integer, Optional<Post>> postLookups;
+    private final Cache postCache;
+    private final int chunkSize;
+    private final PostSnapshots postSnapshots;
 
-    public PostService(PostRepository postRepository) {
+    public PostService(PostRepository postRepository, ApplicationEventPublisher eventPublisher,
+                       SingleFlight<Integer, Optional<Post>> postLookups, CacheManager cacheManager,
+                       @Value("${posts.lookups.chunk-size:500}") int chunkSize, PostSnapshots postSnapshots) {
         this.postRepository = postRepository;
+        this.eventPublisher = eventPublisher;
+        this.postLookups = postLookups;
+        this.postCache = cacheManager.getCache(POSTS_CACHE);
+        this.chunkSize = chunkSize;
+        this.postSnapshots = postSnapshots;
     }
 
+    /**
+     * In snapshot mode a view that reads each post from the snapshot when it is accessed, so the posts are
+     * never all on the heap at once.
+     */
     public List<Post> getAllPosts() {
-        return postRepository.findAll();
+        PostSnapshot snapshot = postSnapshots.current();
+        return snapshot != null ? snapshot.posts() : postRepository.findAll();
+    }
+
+    public List<Post> getPosts(int afterId, int limit) {
+        PostSnapshot snapshot = postSnapshots.current();
+        return snapshot != null ? snapshot.postsAfter(afterId, limit)
+                : postRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    public List<PostSummary> getPostSummaries(int afterId, int limit) {
+        PostSnapshot snapshot = postSnapshots.current();
+        return snapshot != null ? snapshot.summariesAfter(afterId, limit)
+                : postRepository.findSummariesByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
     }
 
+    @Transactional(readOnly = true)
+    public List<Post> getPosts(PostListing listing) {
+        return postRepository.findPage(listing);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PostSummary> getPostSummaries(PostListing listing) {
+        return postRepository.findSummaryPage(listing);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllPosts(Consumer<Post> consumer) {
+        postRepository.scrollAll(consumer);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllPostSummaries(Consumer<PostSummary> consumer) {
+        postRepository.scrollAllSummaries(consumer);
+    }
+
+    /**
+     * Not transactional itself: {@code findById} runs in a read-only transaction of its own, so callers
+     * waiting for another caller's lookup do not hold a connection. Inside a caller's transaction the
+     * lookup is never shared, since it has to see that transaction's writes, and neither is it for a caller
+     * pinned to the primary, which could otherwise get the result of a lookup on a lagging replica.
+     * <p>
+     * A cached post, or a cached miss, is answered before {@link SingleFlight} is entered, so hits neither
+     * pay for coalescing nor count as loads.
+     */
     public Post getPostById(int id) {
-        Post post = postRepository.findById(id).orElseThrow(() -> new PostNotFoundException("Post with id "  + id  + " not found!"));
-        return post;
+        PostSnapshot snapshot = postSnapshots.current();
+        if (snapshot != null) {
+            return Optional.ofNullable(snapshot.find(id)).orElseThrow(() -> new PostNotFoundException(id));
+        }
+        Cache.ValueWrapper cached = postCache.get(id);
+        Optional<Post> post;
+        if (cached != null) {
+            post = Optional.ofNullable((Post) cached.get());
+        } else if (TransactionSynchronizationManager.isActualTransactionActive() || ReplicaDataSource.isPinnedToPrimary()) {
+            post = postRepository.findById(id);
+        } else {
+            post = postLookups.load(id, () -> postRepository.findById(id));
+        }
+        return post.orElseThrow(() -> new PostNotFoundException(id));
+    }
+
+    /**
+     * Not transactional for the same reason as {@link #getPostById}: when every post is cached no
+     * connection is taken, and otherwise each chunk is one {@code findAllById} in a transaction of its own.
+     * Posts found in the database are not put into the cache, so bulk reads do not push out the posts
+     * that single lookups keep hot.
+     */
+    public PostsById<Post> getPostsByIds(List<Integer> ids) {
+        Set<Integer> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        PostSnapshot snapshot = postSnapshots.current();
+        if (snapshot != null) {
+            return collect(requested, snapshot::find);
+        }
+
+        Map<Integer, Post> found = HashMap.newHashMap(requested.size());
+        List<Integer> uncached = new ArrayList<>();
+        for (Integer id : requested) {
+            Cache.ValueWrapper cached = postCache.get(id);
+            if (cached == null) {
+                uncached.add(id);
+            } else if (cached.get() instanceof Post post) {
+                found.put(id, post);
+            }
+        }
+        for (int from = 0; from < uncached.size(); from += chunkSize) {
+            List<Integer> chunk = uncached.subList(from, Math.min(from + chunkSize, uncached.size()));
+            postRepository.findAllById(chunk).forEach(post -> found.put(post.getId(), post));
+        }
+        return collect(requested, found::get);
+    }
+
+    /**
+     * The JSON of a post as stored in the snapshot, for serving without rendering the post again.
+     *
+     * @return {@code null} when not in snapshot mode
+     */
+    public PostSnapshot.Json getPostJson(int id) {
+        PostSnapshot snapshot = postSnapshots.current();
+        if (snapshot == null) {
+            return null;
+        }
+        PostSnapshot.Json json = snapshot.json(id);
+        if (json == null) {
+            throw new PostNotFoundException(id);
+        }
+        return json;
     }
 
+    /**
+     * Writes every post as one JSON line each, copied straight from the snapshot.
+     *
+     * @return {@code false}, having written nothing, when not in snapshot mode
+     */
+    public boolean streamAllPostJson(OutputStream out) throws IOException {
+        PostSnapshot snapshot = postSnapshots.current();
+        if (snapshot == null) {
+            return false;
+        }
+        snapshot.writeJsonLines(out);
+        return true;
+    }
+
+    private static PostsById<Post> collect(Set<Integer> requested, Function<Integer, Post> lookup) {
+        List<Post> posts = new ArrayList<>(requested.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : requested) {
+            Post post = lookup.apply(id);
+            if (post == null) {
+                missing.add(id);
+            } else {
+                posts.add(post);
+            }
+        }
+        return new PostsById<>(posts, missing);
+    }
+
+    /**
+     * Answered from the snapshot or the post cache when they have the post, so revalidating a hot post
+     * does not reach the database; only an uncached post is read with the version projection.
+     */
+    public PostVersion getPostVersion(int id) {
+        PostSnapshot snapshot = postSnapshots.current();
+        if (snapshot != null) {
+            return Optional.ofNullable(snapshot.version(id)).orElseThrow(() -> new PostNotFoundException(id));
+        }
+        Cache.ValueWrapper cached = postCache.get(id);
+        if (cached != null) {
+            if (cached.get() instanceof Post post) {
+                return new PostVersion(post.getVersion(), post.getUpdatedAt());
+            }
+            throw new PostNotFoundException(id);
+        }
+        return postRepository.findVersionById(id).orElseThrow(() -> new PostNotFoundException(id));
+    }
+
+    @Transactional
     public Post savePost(Post post) {
-        return postRepository.save(post);
+        boolean created = post.getId() == null;
+        Post savedPost = postRepository.save(post);
+        eventPublisher.publishEvent(created ? PostChangedEvent.created(savedPost) : PostChangedEvent.updated(savedPost));
+        return savedPost;
     }
 
+    @Transactional
     public void deletePost(int id) {
-        Post post = postRepository.findById(id).orElseThrow(() -> new PostNotFoundException("Post with id "  + id  + " not found!"));
-        postRepository.delete(post);
+        if (postRepository.deletePostById(id) == 0) {
+            throw new PostNotFoundException(id);
+        }
+        eventPublisher.publishEvent(PostChangedEvent.deleted(id));
     }
 
+    @Transactional
     public Post updatePost(int id, Post post) {
-        Post savedPost = postRepository.findById(id).orElseThrow(() -> new PostNotFoundException("Post with id " + id  + " not found!"));
-        if(savedPost != null) {
-            savedPost.setTitle(post.getTitle());
-            savedPost.setDescription(post.getDescription());
+        Post savedPost = postRepository.updateReturning(id, post.getTitle(), post.getDescription(), null)
+                .orElseThrow(() -> new PostNotFoundException(id));
+        eventPublisher.publishEvent(PostChangedEvent.updated(savedPost));
+        return savedPost;
+    }
+
+    /**
+     * Updates the post only if it is still at {@code expectedVersion}. The version is only looked up
+     * separately when the update did not match, to tell a missing post from a stale one.
+     */
+    @Transactional
+    public Post updatePost(int id, Post post, long expectedVersion) {
+        Optional<Post> updated = postRepository.updateReturning(id, post.getTitle(), post.getDescription(), expectedVersion);
+        if (updated.isEmpty()) {
+            // Straight from the database: a snapshot may still hold an older version.
+            long currentVersion = postRepository.findVersionById(id)
+                    .orElseThrow(() -> new PostNotFoundException(id)).version();
+            throw new PostVersionConflictException("Post with id " + id + " is at version " + currentVersion
+                    + ", not " + expectedVersion + "!");
         }
-        return postRepository.save(savedPost);
+        eventPublisher.publishEvent(PostChangedEvent.updated(updated.get()));
+        return updated.get();
     }
 }
@@ -0,0 +1,92 @@
+package com.tdd.demo.TDD_Spring_Boot.service;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
+
+/**
+ * Start-up warm-up, enabled with {@code posts.warmup.enabled}. Runners complete before the application
+ * reports itself ready, so a readiness probe keeps traffic away until the post cache holds the most
+ * recently changed posts (the best guess at the hot set) and the JIT has compiled the request path from
+ * the web server through the post controller and serializer, driven by requests to the local port.
+ */
+@Component
+@ConditionalOnBooleanProperty("posts.warmup.enabled")
+public class PostWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PostWarmup.class);
+
+    private final PostRepository postRepository;
+    private final CacheManager cacheManager;
+    private final Environment environment;
+    private final int preload;
+    private final int requests;
+
+    public PostWarmup(PostRepository postRepository, CacheManager cacheManager, Environment environment,
+                      @Value("${posts.warmup.preload:1000}") int preload,
+                      @Value("${posts.warmup.requests:2000}") int requests) {
+        this.postRepository = postRepository;
+        this.cacheManager = cacheManager;
+        this.environment = environment;
+        this.preload = preload;
+        this.requests = requests;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        List<Integer> ids = preloadCache();
+        int sent = sendRequests(ids);
+        log.info("Warm-up preloaded {} posts and sent {} requests in {} ms",
+                ids.size(), sent, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    List<Integer> preloadCache() {
+        Cache cache = cacheManager.getCache(POSTS_CACHE);
+        List<Post> posts = postRepository.findAllByOrderByUpdatedAtDesc(Limit.of(preload));
+        if (cache != null) {
+            posts.forEach(post -> cache.put(post.getId(), post));
+        }
+        return posts.stream().map(Post::getId).toList();
+    }
+
+    int sendRequests(List<Integer> ids) {
+        String port = environment.getProperty("local.server.port");
+        if (port == null) {
+            return 0;
+        }
+
+        RestClient client = RestClient.create("http://localhost:" + port + "/api/v1");
+        for (int i = 0; i < requests; i++) {
+            try {
+                if (ids.isEmpty() || i % 2 == 0) {
+                    client.get().uri("/posts?limit=100").retrieve().toBodilessEntity();
+                } else {
+                    client.get().uri("/post/{id}", ids.get(i % ids.size())).retrieve().toBodilessEntity();
+                }
+            } catch (RestClientException ex) {
+                // A cold application is still a working one; never hold start-up hostage to the warm-up.
+                log.warn("Warm-up request failed, skipping the rest of the warm-up", ex);
+                return i;
+            }
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,172 @@
+package com.tdd.demo.TDD_Spring_Boot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tdd.demo.TDD_Spring_Boot.dto.BatchItemResult;
+import com.tdd.demo.TDD_Spring_Boot.dto.QueuedPostStatus;
+import com.tdd.demo.TDD_Spring_Boot.exception.WriteQueueFullException;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind for post creation. {@link #enqueue} only puts the post on a bounded in-memory queue and
+ * hands back a ticket; a single writer thread drains up to {@code posts.write-behind.max-batch} posts at a
+ * time into {@link PostBatchService#createPosts}, so a busy producer pays for one transaction per batch
+ * instead of one per post. A full queue is rejected rather than waited on, which is the producer's cue to
+ * back off. Ticket statuses are kept for {@code posts.write-behind.status-ttl}, and at most
+ * {@code posts.write-behind.max-statuses} of them, so a burst of tickets cannot grow the heap without bound;
+ * polling a ticket evicted early answers 404 just like an expired one.
+ * <p>
+ * The queue is not journaled: posts accepted but not yet flushed are lost if the process dies. On a
+ * regular shutdown the queue is stopped after the web server and drained before the data source closes.
+ */
+@Service
+public class PostWriteBehindQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PostWriteBehindQueue.class);
+
+    private final PostBatchService postBatchService;
+    private final BlockingQueue<QueuedPost> queue;
+    private final Cache<UUID, QueuedPostStatus> statuses;
+    private final int maxBatch;
+    private final Timer flushTimer;
+    private final Timer lagTimer;
+    private final Counter rejected;
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public PostWriteBehindQueue(PostBatchService postBatchService, MeterRegistry meterRegistry,
+                                @Value("${posts.write-behind.capacity:10000}") int capacity,
+                                @Value("${posts.write-behind.max-batch:500}") int maxBatch,
+                                @Value("${posts.write-behind.status-ttl:10m}") Duration statusTtl,
+                                @Value("${posts.write-behind.max-statuses:100000}") long maxStatuses) {
+        this.postBatchService = postBatchService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(statusTtl)
+                .maximumSize(maxStatuses)
+                .build();
+        this.maxBatch = maxBatch;
+        Gauge.builder("posts.writebehind.queue.depth", queue, BlockingQueue::size)
+                .description("Posts accepted but not yet written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("posts.writebehind.flush")
+                .description("Time to write one batch from the write-behind queue")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("posts.writebehind.lag")
+                .description("Time from accepting a post to its batch being written")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("posts.writebehind.rejected")
+                .description("Posts turned away because the write-behind queue was full")
+                .register(meterRegistry);
+    }
+
+    public QueuedPostStatus enqueue(Post post) {
+        QueuedPostStatus status = QueuedPostStatus.pending(UUID.randomUUID());
+        statuses.put(status.ticket(), status);
+        if (!running || !queue.offer(new QueuedPost(status.ticket(), post, System.nanoTime()))) {
+            statuses.invalidate(status.ticket());
+            rejected.increment();
+            throw new WriteQueueFullException(running
+                    ? "Write-behind queue is full, retry later!"
+                    : "Write-behind queue is not accepting posts, retry later!");
+        }
+        return status;
+    }
+
+    public Optional<QueuedPostStatus> getStatus(UUID ticket) {
+        return Optional.ofNullable(statuses.getIfPresent(ticket));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("posts-write-behind").daemon().start(this::drain);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writer;
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stop after the web server so that nothing is accepted while the queue drains.
+        return DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<QueuedPost> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedPost first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void flush(List<QueuedPost> batch) {
+        Timer.Sample sample = Timer.start();
+        try {
+            for (BatchItemResult result : postBatchService.createPosts(batch.stream().map(QueuedPost::post).iterator())) {
+                UUID ticket = batch.get(result.index()).ticket();
+                statuses.put(ticket, result.status() == BatchItemResult.Status.CREATED
+                        ? QueuedPostStatus.created(ticket, result.id())
+                        : QueuedPostStatus.failed(ticket, result.error()));
+            }
+        } catch (RuntimeException ex) {
+            // PostBatchService already isolates bad posts; getting here means the database itself is failing.
+            log.error("Write-behind batch of {} posts failed", batch.size(), ex);
+            String error = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+            batch.forEach(queued -> statuses.put(queued.ticket(), QueuedPostStatus.failed(queued.ticket(), error)));
+        } finally {
+            sample.stop(flushTimer);
+            long now = System.nanoTime();
+            batch.forEach(queued -> lagTimer.record(now - queued.acceptedAt(), TimeUnit.NANOSECONDS));
+        }
+    }
+
+    record QueuedPost(UUID ticket, Post post, long acceptedAt) {
+    }
+}
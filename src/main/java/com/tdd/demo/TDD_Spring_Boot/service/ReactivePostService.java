@@ -0,0 +1,110 @@
+package com.tdd.demo.TDD_Spring_Boot.service;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostVersion;
+import com.tdd.demo.TDD_Spring_Boot.exception.PostNotFoundException;
+import com.tdd.demo.TDD_Spring_Boot.exception.PostVersionConflictException;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.ReactivePostRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.function.Function;
+
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
+
+/**
+ * Non-blocking mirror of {@link PostService}, with the same error messages and change events.
+ * Writes evict the post cache that the JPA side reads through.
+ * <p>
+ * Each write runs in an R2DBC transaction together with the append of its change to the change log, so the
+ * log has the change exactly when the write commits. The change event follows after the commit, marked as
+ * logged, on {@link Schedulers#boundedElastic()} rather than on the R2DBC thread that completed the write:
+ * its listeners, such as the search index, may block.
+ */
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactivePostService {
+    private final ReactivePostRepository postRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache postsCache;
+
+    public ReactivePostService(ReactivePostRepository postRepository, TransactionalOperator transactionalOperator,
+                               ApplicationEventPublisher eventPublisher, CacheManager cacheManager) {
+        this.postRepository = postRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.eventPublisher = eventPublisher;
+        this.postsCache = cacheManager.getCache(POSTS_CACHE);
+    }
+
+    public Flux<Post> streamAllPosts() {
+        return postRepository.findAll();
+    }
+
+    public Flux<Post> getPosts(int afterId, int limit) {
+        return postRepository.findPage(afterId, limit);
+    }
+
+    public Mono<Post> getPostById(int id) {
+        return postRepository.findById(id).switchIfEmpty(notFound(id));
+    }
+
+    public Mono<PostVersion> getPostVersion(int id) {
+        return postRepository.findVersionById(id).switchIfEmpty(notFound(id));
+    }
+
+    /**
+     * A post that already has an id is updated in place rather than merged.
+     */
+    public Mono<Post> savePost(Post post) {
+        if (post.getId() != null) {
+            return updatePost(post.getId(), post);
+        }
+        return changed(postRepository.insert(post.getTitle(), post.getDescription()), PostChangedEvent::created);
+    }
+
+    public Mono<Void> deletePost(int id) {
+        return changed(postRepository.deleteById(id)
+                        .flatMap(deleted -> deleted == 0 ? notFound(id) : Mono.just(deleted)),
+                deleted -> PostChangedEvent.deleted(id))
+                .then();
+    }
+
+    public Mono<Post> updatePost(int id, Post post) {
+        return changed(postRepository.updateReturning(id, post.getTitle(), post.getDescription(), null)
+                .switchIfEmpty(notFound(id)), PostChangedEvent::updated);
+    }
+
+    public Mono<Post> updatePost(int id, Post post, long expectedVersion) {
+        return changed(postRepository.updateReturning(id, post.getTitle(), post.getDescription(), expectedVersion)
+                .switchIfEmpty(getPostVersion(id).flatMap(current -> Mono.error(new PostVersionConflictException(
+                        "Post with id " + id + " is at version " + current.version() + ", not " + expectedVersion + "!")))),
+                PostChangedEvent::updated);
+    }
+
+    private <T> Mono<T> changed(Mono<T> write, Function<T, PostChangedEvent> change) {
+        return write
+                .flatMap(result -> postRepository.appendChange(change.apply(result)).thenReturn(result))
+                .as(transactionalOperator::transactional)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(result -> {
+                    PostChangedEvent event = change.apply(result).asLogged();
+                    if (postsCache != null) {
+                        postsCache.evict(event.postId());
+                    }
+                    eventPublisher.publishEvent(event);
+                });
+    }
+
+    private static <T> Mono<T> notFound(int id) {
+        return Mono.error(() -> new PostNotFoundException(id));
+    }
+}
@@ -0,0 +1,113 @@
+package com.tdd.demo.TDD_Spring_Boot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one: the first caller runs the loader and every caller
+ * arriving while it runs waits for and shares its result, or its exception. Nothing is kept once the load
+ * completes, so callers after that run a load of their own. The in-flight map is a
+ * {@link ConcurrentHashMap}, which only locks the bin of the key being added.
+ * <p>
+ * Waiting is bounded by {@code maxWait}. When it runs out, the first waiter to notice takes the key over and
+ * runs the loader itself, and the other waiters wait for that load instead. A stuck or slow load therefore
+ * costs one extra load per {@code maxWait}, however many callers are waiting for it. An interrupted waiter
+ * stops waiting and runs the loader on its own.
+ * <p>
+ * Calls are counted as {@code <name>.calls}, tagged {@code result}: {@code loaded} for every run of the
+ * loader, {@code coalesced} for a caller that joined another caller's load and {@code timed_out} for every
+ * wait that ran out. {@code <name>.in.flight} is the number of keys being loaded.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+    private final Counter loaded;
+    private final Counter coalesced;
+    private final Counter timedOut;
+
+    public SingleFlight(String name, Duration maxWait, MeterRegistry meterRegistry) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.loaded = callCounter(meterRegistry, name, "loaded");
+        this.coalesced = callCounter(meterRegistry, name, "coalesced");
+        this.timedOut = callCounter(meterRegistry, name, "timed_out");
+        Gauge.builder(name + ".in.flight", inFlight, ConcurrentMap::size)
+                .description("Keys being loaded")
+                .register(meterRegistry);
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            return lead(key, flight, loader);
+        }
+        coalesced.increment();
+        while (true) {
+            try {
+                return leader.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException ex) {
+                throw rethrow(ex.getCause());
+            } catch (TimeoutException ex) {
+                timedOut.increment();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                timedOut.increment();
+                loaded.increment();
+                return loader.get();
+            }
+            // Take over from a load that is still running; if it finished meanwhile, its result is ready.
+            if (!leader.isDone() && inFlight.replace(key, leader, flight)) {
+                return lead(key, flight, loader);
+            }
+            if (!leader.isDone()) {
+                // Another waiter took over, or the load ended and someone started the next one.
+                CompletableFuture<V> next = inFlight.putIfAbsent(key, flight);
+                if (next == null) {
+                    return lead(key, flight, loader);
+                }
+                leader = next;
+            }
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> flight, Supplier<V> loader) {
+        loaded.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private static Counter callCounter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder(name + ".calls")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,364 @@
+package com.tdd.demo.TDD_Spring_Boot.snapshot;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostVersion;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * An immutable file of every post, memory-mapped read-only, so lookups run without the database, without
+ * JPA and mostly outside the Java heap. Each record also carries the post's JSON as the API renders it,
+ * which can be copied to a response as is.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header   int magic, int format, int count, int indexOffset
+ * records  long version, long createdAt, long updatedAt   (microseconds since the epoch)
+ *          int length + UTF-8 title, int length + UTF-8 description, int length + JSON
+ * index    count * (int id, int record offset), ascending by id
+ * </pre>
+ * Absent values are {@link Long#MIN_VALUE} or a length of -1. All reads use absolute positions, so one
+ * instance can be shared by any number of threads. A mapping cannot exceed 2 GiB, which bounds the file.
+ */
+public final class PostSnapshot {
+
+    private static final int MAGIC = 0x50534E50; // "PSNP"
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int INDEX_ENTRY_SIZE = 8;
+    private static final long ABSENT = Long.MIN_VALUE;
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int indexOffset;
+
+    private PostSnapshot(Path file, MappedByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+            throw new IllegalStateException(file + " is not a post snapshot");
+        }
+        this.file = file;
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+        this.indexOffset = buffer.getInt(12);
+    }
+
+    /**
+     * A post's JSON with what the response validators need, read from the snapshot.
+     */
+    public record Json(byte[] body, Long version, Instant updatedAt) {}
+
+    /**
+     * Writes {@code posts}, which must come in ascending id order, to {@code file}. Only the index is
+     * held in memory while writing.
+     */
+    public static void write(Path file, Consumer<Consumer<Post>> posts, ObjectWriter jsonWriter) {
+        IntList ids = new IntList();
+        IntList offsets = new IntList();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.write(new byte[HEADER_SIZE]);
+            posts.accept(post -> {
+                if (!ids.isEmpty() && post.getId() <= ids.last()) {
+                    throw new IllegalArgumentException("Posts must come in ascending id order, got " + post.getId()
+                            + " after " + ids.last());
+                }
+                ids.add(post.getId());
+                offsets.add(out.size());
+                try {
+                    out.writeLong(post.getVersion() == null ? ABSENT : post.getVersion());
+                    out.writeLong(micros(post.getCreatedAt()));
+                    out.writeLong(micros(post.getUpdatedAt()));
+                    writeBytes(out, post.getTitle() == null ? null : post.getTitle().getBytes(StandardCharsets.UTF_8));
+                    writeBytes(out, post.getDescription() == null ? null : post.getDescription().getBytes(StandardCharsets.UTF_8));
+                    writeBytes(out, jsonWriter.writeValueAsBytes(post));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                checkSize(out);
+            });
+            int indexOffset = out.size();
+            for (int i = 0; i < ids.size(); i++) {
+                out.writeInt(ids.get(i));
+                out.writeInt(offsets.get(i));
+            }
+            checkSize(out);
+            out.flush();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT).putInt(ids.size())
+                        .putInt(indexOffset).flip(), 0);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public static PostSnapshot open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed, and after the file is deleted.
+            return new PostSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long bytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return the post, or {@code null} if the snapshot has no post with that id
+     */
+    public Post find(int id) {
+        int offset = offsetOf(id);
+        return offset < 0 ? null : readPost(id, offset);
+    }
+
+    /**
+     * @return the version of the post, or {@code null} if the snapshot has no post with that id
+     */
+    public PostVersion version(int id) {
+        int offset = offsetOf(id);
+        return offset < 0 ? null : new PostVersion(buffer.getLong(offset), instant(buffer.getLong(offset + 16)));
+    }
+
+    /**
+     * @return the post's JSON, or {@code null} if the snapshot has no post with that id
+     */
+    public Json json(int id) {
+        int offset = offsetOf(id);
+        if (offset < 0) {
+            return null;
+        }
+        int json = skip(skip(offset + 24));
+        byte[] body = new byte[buffer.getInt(json)];
+        buffer.get(json + 4, body);
+        long version = buffer.getLong(offset);
+        return new Json(body, version == ABSENT ? null : version, instant(buffer.getLong(offset + 16)));
+    }
+
+    public void forEach(Consumer<Post> consumer) {
+        for (int i = 0; i < count; i++) {
+            int entry = indexOffset + i * INDEX_ENTRY_SIZE;
+            consumer.accept(readPost(buffer.getInt(entry), buffer.getInt(entry + 4)));
+        }
+    }
+
+    /**
+     * All posts in id order, as a view that reads a post from the mapping each time it is accessed.
+     */
+    public List<Post> posts() {
+        return new Posts();
+    }
+
+    /**
+     * Up to {@code limit} posts with ids above {@code afterId}, in id order: a binary search of the index
+     * for the first of them, then a walk forward.
+     */
+    public List<Post> postsAfter(int afterId, int limit) {
+        List<Post> posts = new ArrayList<>(Math.min(limit, count));
+        for (int i = firstAfter(afterId); i < count && posts.size() < limit; i++) {
+            int entry = indexOffset + i * INDEX_ENTRY_SIZE;
+            posts.add(readPost(buffer.getInt(entry), buffer.getInt(entry + 4)));
+        }
+        return posts;
+    }
+
+    /**
+     * Like {@link #postsAfter}, without reading the descriptions.
+     */
+    public List<PostSummary> summariesAfter(int afterId, int limit) {
+        List<PostSummary> summaries = new ArrayList<>(Math.min(limit, count));
+        for (int i = firstAfter(afterId); i < count && summaries.size() < limit; i++) {
+            int entry = indexOffset + i * INDEX_ENTRY_SIZE;
+            int offset = buffer.getInt(entry + 4);
+            long version = buffer.getLong(offset);
+            summaries.add(new PostSummary(buffer.getInt(entry), string(offset + 24), version == ABSENT ? null : version,
+                    instant(buffer.getLong(offset + 8)), instant(buffer.getLong(offset + 16))));
+        }
+        return summaries;
+    }
+
+    /**
+     * Writes the JSON of every post in id order, one per line, through a single copy buffer.
+     */
+    public void writeJsonLines(OutputStream out) throws IOException {
+        byte[] copy = new byte[COPY_BUFFER_SIZE];
+        for (int i = 0; i < count; i++) {
+            int json = skip(skip(buffer.getInt(indexOffset + i * INDEX_ENTRY_SIZE + 4) + 24));
+            int remaining = buffer.getInt(json);
+            int position = json + 4;
+            while (remaining > 0) {
+                int chunk = Math.min(remaining, copy.length);
+                buffer.get(position, copy, 0, chunk);
+                out.write(copy, 0, chunk);
+                position += chunk;
+                remaining -= chunk;
+            }
+            out.write('\n');
+        }
+    }
+
+    private int offsetOf(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = indexOffset + middle * INDEX_ENTRY_SIZE;
+            int middleId = buffer.getInt(entry);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return buffer.getInt(entry + 4);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Position in the index of the first post with an id above {@code id}, {@code count} if there is none.
+     */
+    private int firstAfter(int id) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getInt(indexOffset + middle * INDEX_ENTRY_SIZE) <= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private Post readPost(int id, int offset) {
+        int title = offset + 24;
+        int description = skip(title);
+        Post post = new Post(id, string(title), string(description));
+        long version = buffer.getLong(offset);
+        post.setVersion(version == ABSENT ? null : version);
+        post.setCreatedAt(instant(buffer.getLong(offset + 8)));
+        post.setUpdatedAt(instant(buffer.getLong(offset + 16)));
+        return post;
+    }
+
+    private String string(int position) {
+        int length = buffer.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Position after the length-prefixed bytes at {@code position}.
+     */
+    private int skip(int position) {
+        return position + 4 + Math.max(buffer.getInt(position), 0);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void checkSize(DataOutputStream out) {
+        // DataOutputStream stops counting at Integer.MAX_VALUE, which is also the largest mapping.
+        if (out.size() == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Post snapshot does not fit into 2 GiB");
+        }
+    }
+
+    private static long micros(Instant instant) {
+        return instant == null ? ABSENT
+                : Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static Instant instant(long micros) {
+        return micros == ABSENT ? null
+                : Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    private final class Posts extends AbstractList<Post> implements RandomAccess {
+
+        @Override
+        public Post get(int index) {
+            int entry = indexOffset + Objects.checkIndex(index, count) * INDEX_ENTRY_SIZE;
+            return readPost(buffer.getInt(entry), buffer.getInt(entry + 4));
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    /**
+     * Growable int array, so the index of a large snapshot is not held as boxed integers while writing.
+     */
+    private static final class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int last() {
+            return values[size - 1];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
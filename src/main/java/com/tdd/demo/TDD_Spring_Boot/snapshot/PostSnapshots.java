@@ -0,0 +1,141 @@
+package com.tdd.demo.TDD_Spring_Boot.snapshot;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Snapshot serving mode for read-mostly deployments, enabled with {@code posts.snapshot.enabled}: post reads
+ * in {@link com.tdd.demo.TDD_Spring_Boot.service.PostService} are answered from the current
+ * {@link PostSnapshot} instead of the database. The snapshot is built from the database at start-up, before
+ * the application reports ready and before the warm-up, and again on every {@link #rebuild()}. A new
+ * snapshot replaces the old one with a single volatile write, so a reader sees one or the other in full.
+ * Writes still go to the database and only show up in reads after the next rebuild.
+ * <p>
+ * A replaced snapshot's file is deleted straight away; its mapping, and with it the disk space, goes once
+ * the last reader holding it is done and the garbage collector has reclaimed it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PostSnapshots implements ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PostSnapshots.class);
+
+    private final PostRepository postRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter jsonWriter;
+    private final Timer rebuildTimer;
+    private final boolean enabled;
+    private final String directory;
+    private Path snapshotDirectory;
+    private volatile PostSnapshot current;
+
+    public PostSnapshots(PostRepository postRepository, PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         @Value("${posts.snapshot.enabled:false}") boolean enabled,
+                         @Value("${posts.snapshot.directory:}") String directory) {
+        this.postRepository = postRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.jsonWriter = objectMapper.writerFor(Post.class);
+        this.rebuildTimer = meterRegistry.timer("posts.snapshot.rebuild");
+        this.enabled = enabled;
+        this.directory = directory;
+        Gauge.builder("posts.snapshot.posts", this, snapshots -> snapshots.current == null ? 0 : snapshots.current.size())
+                .register(meterRegistry);
+        Gauge.builder("posts.snapshot.bytes", this, snapshots -> snapshots.current == null ? 0 : snapshots.current.bytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the snapshot reads are answered from, or {@code null} when they go to the database
+     */
+    public PostSnapshot current() {
+        return current;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Writes all posts to a new snapshot file and switches reads over to it. Rebuilds run one at a time;
+     * reads carry on from the previous snapshot meanwhile.
+     */
+    public synchronized PostSnapshot rebuild() {
+        if (!enabled) {
+            throw new IllegalStateException("Post snapshots are disabled, see posts.snapshot.enabled");
+        }
+        PostSnapshot snapshot = rebuildTimer.record(() -> {
+            Path file = newFile();
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        PostSnapshot.write(file, postRepository::scrollAll, jsonWriter));
+                return PostSnapshot.open(file);
+            } catch (RuntimeException ex) {
+                delete(file);
+                throw ex;
+            }
+        });
+        PostSnapshot previous = current;
+        current = snapshot;
+        if (previous != null) {
+            delete(previous.file());
+        }
+        log.info("Serving posts from snapshot {}: {} posts, {} bytes", snapshot.file(), snapshot.size(), snapshot.bytes());
+        return snapshot;
+    }
+
+    @Override
+    public void destroy() {
+        PostSnapshot snapshot = current;
+        if (snapshot != null) {
+            delete(snapshot.file());
+        }
+    }
+
+    private Path newFile() {
+        try {
+            if (snapshotDirectory == null) {
+                snapshotDirectory = directory.isBlank()
+                        ? Files.createTempDirectory("post-snapshots")
+                        : Files.createDirectories(Path.of(directory));
+            }
+            return Files.createTempFile(snapshotDirectory, "posts-", ".snapshot");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete post snapshot {}", file, ex);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- Ids come from a pooled sequence: Hibernate reserves blocks of 50 per round trip (see Post).
+create sequence posts_seq start with 1 increment by 50;
+
+create table posts (
+    id          integer not null,
+    title       varchar(255),
+    description varchar(255),
+    version     bigint,
+    updated_at  timestamp(6) with time zone,
+    primary key (id)
+);
@@ -0,0 +1,2 @@
+-- Descriptions are unbounded text; listings that leave them out select from PostSummary instead.
+alter table posts alter column description set data type character large object;
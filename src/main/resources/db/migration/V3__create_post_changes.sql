@@ -0,0 +1,18 @@
+-- Transactional outbox behind the change feed (see PostChangeLog). Writers take their sequence numbers from
+-- the single counter row just before they commit, so seq order is commit order and has no gaps.
+create table post_change_counter (
+    id       integer not null,
+    last_seq bigint  not null,
+    primary key (id)
+);
+insert into post_change_counter (id, last_seq) values (1, 0);
+
+create table post_changes (
+    seq        bigint      not null,
+    post_id    integer     not null,
+    type       varchar(16) not null,
+    version    bigint,
+    changed_at timestamp(6) with time zone not null,
+    primary key (seq)
+);
+create index post_changes_changed_at on post_changes (changed_at);
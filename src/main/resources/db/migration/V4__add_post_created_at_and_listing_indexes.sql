@@ -0,0 +1,10 @@
+-- Creation time of every post. Earlier posts never recorded it; their last update is the closest there is.
+alter table posts add column created_at timestamp(6) with time zone;
+update posts set created_at = coalesce(updated_at, current_timestamp);
+alter table posts alter column created_at set not null;
+
+-- The indexes declared on Post. Each ends in id, the tie-breaker of every listing order, so a keyset page
+-- is one range scan in index order.
+create index posts_created_at on posts (created_at, id);
+create index posts_updated_at on posts (updated_at, id);
+create index posts_title on posts (title, id);
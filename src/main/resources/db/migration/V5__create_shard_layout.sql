@@ -0,0 +1,8 @@
+-- The shard layout the posts were distributed with, recorded on the first shard when sharding starts up (see
+-- ShardingConfig). Nothing moves rows between shards, so a different layout would leave posts unreachable.
+create table shard_layout (
+    id            integer not null,
+    shard_count   integer not null,
+    virtual_nodes integer not null,
+    primary key (id)
+);
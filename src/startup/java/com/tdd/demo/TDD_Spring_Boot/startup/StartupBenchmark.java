@@ -0,0 +1,200 @@
+package com.tdd.demo.TDD_Spring_Boot.startup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching the application to its first successful request, for each way of launching it:
+ * <ul>
+ *   <li>{@code baseline}: {@code java -jar} on the packaged jar, how the application used to run;</li>
+ *   <li>{@code aot}: the same jar with the Spring AOT-generated bean definitions ({@code -Dspring.aot.enabled});</li>
+ *   <li>{@code cds}: the extracted jar with a class-data-sharing archive from a training run;</li>
+ *   <li>{@code aot+cds}: both, which is how the Dockerfile runs it;</li>
+ *   <li>{@code aot+cds+lazy}: both, with lazy bean initialization.</li>
+ * </ul>
+ * Every run is a fresh JVM against its own in-memory database, timed until {@code GET /api/v1/posts}
+ * answers 200. Runs of the different modes are interleaved so that drift in the machine's load hits all
+ * of them alike, and each mode is reported relative to the baseline.
+ * <p>
+ * Run with {@code mvn -Pfast-startup verify -DskipTests [-Dstartup.args="runs=10 modes=baseline,aot+cds"]},
+ * which packages the AOT-processed jar first. Settings are {@code key=value}: {@code jar}, {@code runs} (5),
+ * {@code modes} (all) and {@code timeout} in seconds per start (180). Results are written to
+ * {@code target/startup-result.properties}, logs of every run to {@code target/startup}.
+ */
+public final class StartupBenchmark {
+
+    private static final List<String> MODES = List.of("baseline", "aot", "cds", "aot+cds", "aot+cds+lazy");
+    private static final Path WORK_DIR = Path.of("target", "startup");
+
+    private final String java = ProcessHandle.current().info().command().orElse("java");
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final Path jar;
+    private final Duration timeout;
+    private Path extractedJar;
+
+    private StartupBenchmark(Path jar, Duration timeout) {
+        this.jar = jar;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            settings.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        Path jar = Path.of(settings.getOrDefault("jar", "target/TDD-Spring-Boot-0.0.1-SNAPSHOT.jar"));
+        int runs = Integer.parseInt(settings.getOrDefault("runs", "5"));
+        List<String> modes = List.of(settings.getOrDefault("modes", String.join(",", MODES)).split(","));
+        modes.stream().filter(mode -> !MODES.contains(mode)).findFirst().ifPresent(mode -> {
+            throw new IllegalArgumentException("Unknown mode " + mode + ", expected one of " + MODES);
+        });
+        Duration timeout = Duration.ofSeconds(Long.parseLong(settings.getOrDefault("timeout", "180")));
+
+        StartupBenchmark benchmark = new StartupBenchmark(jar, timeout);
+        Files.createDirectories(WORK_DIR);
+        for (String mode : modes) {
+            benchmark.prepare(mode);
+        }
+
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        for (int run = 1; run <= runs; run++) {
+            for (String mode : modes) {
+                long millis = benchmark.timeToFirstRequest(mode, run);
+                System.out.printf("%-14s run %d: %d ms%n", mode, run, millis);
+                results.computeIfAbsent(mode, key -> new ArrayList<>()).add(millis);
+            }
+        }
+        report(results);
+    }
+
+    /**
+     * Extracts the jar and records the class-data-sharing archive for the modes that use one. The archive
+     * is dumped when the training run exits after the context has refreshed.
+     */
+    private void prepare(String mode) throws IOException, InterruptedException {
+        if (!mode.contains("cds")) {
+            return;
+        }
+        if (extractedJar == null) {
+            Path destination = WORK_DIR.resolve("extracted");
+            run(List.of(java, "-Djarmode=tools", "-jar", jar.toString(), "extract", "--force",
+                    "--destination", destination.toString()), WORK_DIR.resolve("extract.log"));
+            extractedJar = destination.resolve(jar.getFileName());
+        }
+        List<String> command = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + archive(mode),
+                "-Dspring.context.exit=onRefresh"));
+        command.addAll(options(mode));
+        command.addAll(List.of("-jar", extractedJar.toString(), "--server.port=0"));
+        run(command, WORK_DIR.resolve(fileName(mode) + "-training.log"));
+    }
+
+    private long timeToFirstRequest(String mode, int run) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(java));
+        if (mode.contains("cds")) {
+            command.add("-XX:SharedArchiveFile=" + archive(mode));
+        }
+        command.addAll(options(mode));
+        command.addAll(List.of("-jar", mode.contains("cds") ? extractedJar.toString() : jar.toString(),
+                "--server.port=" + port));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/posts"))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(WORK_DIR.resolve(fileName(mode) + "-" + run + ".log").toFile())
+                .start();
+        try {
+            while (System.nanoTime() - start < timeout.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode + " exited with " + process.exitValue() + ", see " + WORK_DIR);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException notListeningYet) {
+                    // keep polling
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException(mode + " did not answer within " + timeout);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static List<String> options(String mode) {
+        List<String> options = new ArrayList<>();
+        if (mode.contains("aot")) {
+            options.add("-Dspring.aot.enabled=true");
+        }
+        if (mode.contains("lazy")) {
+            options.add("-Dspring.main.lazy-initialization=true");
+        }
+        return options;
+    }
+
+    private static Path archive(String mode) {
+        return WORK_DIR.resolve(fileName(mode) + ".jsa");
+    }
+
+    private static String fileName(String mode) {
+        return mode.replace('+', '-');
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void run(List<String> command, Path log) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException(String.join(" ", command) + " failed, see " + log);
+        }
+    }
+
+    private static void report(Map<String, List<Long>> results) throws IOException {
+        Properties properties = new Properties();
+        Long baseline = results.containsKey("baseline") ? median(results.get("baseline")) : null;
+        System.out.printf("%n%-14s %10s %10s %10s %12s%n", "mode", "median ms", "min ms", "max ms", "vs baseline");
+        results.forEach((mode, millis) -> {
+            long median = median(millis);
+            String relative = baseline == null ? "-" : String.format("%.2fx", (double) median / baseline);
+            System.out.printf("%-14s %10d %10d %10d %12s%n", mode, median,
+                    Collections.min(millis), Collections.max(millis), relative);
+            properties.setProperty(mode + ".median.ms", Long.toString(median));
+            properties.setProperty(mode + ".min.ms", Long.toString(Collections.min(millis)));
+            properties.setProperty(mode + ".max.ms", Long.toString(Collections.max(millis)));
+        });
+        try (OutputStream out = Files.newOutputStream(Path.of("target", "startup-result.properties"))) {
+            properties.store(out, "Time to first successful request");
+        }
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = values.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+}
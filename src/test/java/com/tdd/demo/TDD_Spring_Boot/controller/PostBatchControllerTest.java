@@ -0,0 +1,95 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.BatchItemResult;
+import com.tdd.demo.TDD_Spring_Boot.dto.BatchItemResult.Status;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostBatchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PostBatchController.class)
+public class PostBatchControllerTest {
+
+    @MockitoBean
+    private PostBatchService postBatchService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void createPosts() throws Exception {
+        String requestJson = """
+                [{"title":"First Post","description":"Spring Boot TDD"},{"title":"Second Post","description":"Mastering TDD"}]""";
+        String expectedJson = """
+                [{"index":0,"id":1,"status":"CREATED"},{"index":1,"status":"FAILED","error":"boom"}]""";
+        when(postBatchService.createPosts(any())).thenReturn(List.of(
+                BatchItemResult.of(0, 1, Status.CREATED),
+                BatchItemResult.failed(1, null, "boom")));
+
+        mockMvc.perform(post("/api/v1/posts/batch").contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(content().json(expectedJson, JsonCompareMode.STRICT));
+    }
+
+    @Test
+    public void createPosts_Ndjson() throws Exception {
+        String requestNdjson = """
+                {"title":"First Post","description":"Spring Boot TDD"}
+                {"title":"Second Post","description":"Mastering TDD"}
+                """;
+        List<Post> received = new ArrayList<>();
+        when(postBatchService.createPosts(any())).thenAnswer(invocation -> {
+            Iterator<Post> posts = invocation.getArgument(0);
+            posts.forEachRemaining(received::add);
+            return List.of(BatchItemResult.of(0, 1, Status.CREATED), BatchItemResult.of(1, 2, Status.CREATED));
+        });
+
+        mockMvc.perform(post("/api/v1/posts/batch").contentType(MediaType.APPLICATION_NDJSON).content(requestNdjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        assertEquals(2, received.size());
+        assertEquals("Second Post", received.get(1).getTitle());
+    }
+
+    @Test
+    public void updatePosts() throws Exception {
+        String requestJson = """
+                [{"id":1,"title":"New Title","description":"New Desc"},{"id":999,"title":"Missing","description":"Missing"}]""";
+        when(postBatchService.updatePosts(any())).thenReturn(List.of(
+                BatchItemResult.of(0, 1, Status.UPDATED),
+                BatchItemResult.of(1, 999, Status.NOT_FOUND)));
+
+        mockMvc.perform(put("/api/v1/posts/batch").contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    public void deletePosts() throws Exception {
+        when(postBatchService.deletePosts(any())).thenReturn(List.of(
+                BatchItemResult.of(0, 1, Status.DELETED),
+                BatchItemResult.of(1, 999, Status.NOT_FOUND)));
+
+        mockMvc.perform(delete("/api/v1/posts/batch").contentType(MediaType.APPLICATION_JSON).content("[1,999]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("DELETED"))
+                .andExpect(jsonPath("$[1].id").value(999));
+    }
+}
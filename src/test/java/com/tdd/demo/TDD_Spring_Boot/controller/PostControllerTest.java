@@ -1,6 +1,10 @@
 package com.tdd.demo.TDD_Spring_Boot.controller;
 
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostVersion;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostsById;
 import com.tdd.demo.TDD_Spring_Boot.exception.PostNotFoundException;
+import com.tdd.demo.TDD_Spring_Boot.exception.PostVersionConflictException;
 import com.tdd.demo.TDD_Spring_Boot.model.Post;
 import com.tdd.demo.TDD_Spring_Boot.service.PostService;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,23 +12,29 @@ import org.junit.jupiter.api.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest
+@WebMvcTest(PostController.class)
 public class PostControllerTest {
 
     private List<Post> posts = new ArrayList<>();
@@ -43,12 +53,114 @@ public class PostControllerTest {
     public void findAllPosts() throws Exception {
         String jsonResponse = """
                 [{"id":1,"title":"First Post","description":"Spring Boot TDD"}, { "id":2,"title":"Second Post","description":"Mastering TDD"}]""";
-        when(postService.getAllPosts()).thenReturn(posts);
+        when(postService.getPosts(0, 101)).thenReturn(posts);
         ResultActions resultActions = mockMvc.perform(get("/api/v1/posts")).andExpect(status().isOk())
-                .andExpect(content().json(jsonResponse));
+                .andExpect(content().json(jsonResponse))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
         JSONAssert.assertEquals(jsonResponse, resultActions.andReturn().getResponse().getContentAsString(), false);
     }
 
+    @Test
+    public void findPosts_NextCursor() throws Exception {
+        String jsonResponse = """
+                [{"id":1,"title":"First Post","description":"Spring Boot TDD"}]""";
+        when(postService.getPosts(0, 2)).thenReturn(posts);
+        String cursor = mockMvc.perform(get("/api/v1/posts").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(jsonResponse, JsonCompareMode.STRICT))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        when(postService.getPosts(1, 2)).thenReturn(List.of(posts.get(1)));
+        mockMvc.perform(get("/api/v1/posts").param("limit", "1").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void findPosts_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/posts").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        verify(postService, never()).getPosts(anyInt(), anyInt());
+    }
+
+    @Test
+    public void findPosts_Fields() throws Exception {
+        when(postService.getPostSummaries(0, 101)).thenReturn(List.of(
+                new PostSummary(1, "First Post", 0L, null, null), new PostSummary(2, "Second Post", 3L, null, null)));
+
+        mockMvc.perform(get("/api/v1/posts").param("fields", "title,id"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        [{"id":1,"title":"First Post"},{"id":2,"title":"Second Post"}]""", JsonCompareMode.STRICT))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        verify(postService, never()).getPosts(anyInt(), anyInt());
+    }
+
+    @Test
+    public void findPosts_FieldsWithDescription() throws Exception {
+        when(postService.getPosts(0, 101)).thenReturn(posts);
+
+        mockMvc.perform(get("/api/v1/posts").param("fields", "id,description"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        [{"id":1,"description":"Spring Boot TDD"},{"id":2,"description":"Mastering TDD"}]""", JsonCompareMode.STRICT));
+        verify(postService, never()).getPostSummaries(anyInt(), anyInt());
+    }
+
+    @Test
+    public void findPosts_UnknownField() throws Exception {
+        mockMvc.perform(get("/api/v1/posts").param("fields", "id,author"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unknown field: author"));
+        verify(postService, never()).getPostSummaries(anyInt(), anyInt());
+    }
+
+    @Test
+    public void streamPosts_Fields() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<PostSummary> consumer = invocation.getArgument(0);
+            consumer.accept(new PostSummary(1, "First Post", 0L, null, null));
+            consumer.accept(new PostSummary(2, "Second Post", 0L, null, null));
+            return null;
+        }).when(postService).streamAllPostSummaries(any());
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts").param("fields", "id")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("{\"id\":1}\n{\"id\":2}", body.strip());
+    }
+
+    @Test
+    public void streamPosts() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Post> consumer = invocation.getArgument(0);
+            posts.forEach(consumer);
+            return null;
+        }).when(postService).streamAllPosts(any());
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        JSONAssert.assertEquals("""
+                {"id":1,"title":"First Post","description":"Spring Boot TDD"}""", lines[0], false);
+        JSONAssert.assertEquals("""
+                {"id":2,"title":"Second Post","description":"Mastering TDD"}""", lines[1], false);
+    }
+
     @Test
     public void findPostById() throws Exception {
         String jsonResponse = """
@@ -60,6 +172,35 @@ public class PostControllerTest {
         JSONAssert.assertEquals(jsonResponse, resultActions.andReturn().getResponse().getContentAsString(), false);
     }
 
+    @Test
+    public void findPostById_Fields() throws Exception {
+        when(postService.getPostById(1)).thenReturn(new Post(1, "First Post", "Spring Boot TDD"));
+
+        mockMvc.perform(get("/api/v1/post/{id}", 1).param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"title":"First Post"}""", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    public void findPostsByIds() throws Exception {
+        when(postService.getPostsByIds(List.of(2, 5, 1))).thenReturn(new PostsById<>(List.of(posts.get(1), posts.get(0)), List.of(5)));
+
+        mockMvc.perform(get("/api/v1/posts").param("ids", "2,5,1").param("fields", "id"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"posts":[{"id":2},{"id":1}],"missing":[5]}""", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    public void findPostsByIds_TooMany() throws Exception {
+        String ids = String.join(",", Collections.nCopies(PostController.MAX_IDS + 1, "1"));
+
+        mockMvc.perform(post("/api/v1/posts/lookup").contentType(MediaType.APPLICATION_JSON).content("[" + ids + "]"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(postService);
+    }
+
     @Test
     public void findPostById_NotFound() throws Exception {
         int id = 999;
@@ -110,10 +251,9 @@ public class PostControllerTest {
 
         mockMvc.perform(delete("/api/v1/post/{id}", id))
                 .andExpect(status().isNotFound())
-                .andExpect(result -> assertEquals(
-                        "Post with id 999 not found!",
-                        result.getResponse().getContentAsString()
-                ));
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.detail").value("The requested post does not exist."));
     }
 
 
@@ -169,11 +309,87 @@ public class PostControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(requestJson))
                 .andExpect(status().isNotFound())
-                .andExpect(result -> assertEquals(
-                        "Post with id 999 not found!",
-                        result.getResponse().getContentAsString()
-                ));
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.detail").value("The requested post does not exist."));
+    }
+
+    @Test
+    public void getPostById_NotModified() throws Exception {
+        int id = 1;
+        Instant updatedAt = Instant.parse("2026-01-01T10:00:00Z");
+
+        when(postService.getPostVersion(id)).thenReturn(new PostVersion(3, updatedAt));
+
+        mockMvc.perform(get("/api/v1/post/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(postService, never()).getPostById(anyInt());
+    }
+
+    @Test
+    public void getPostById_Modified() throws Exception {
+        int id = 1;
+        Post post = new Post(1, "First Post", "Spring Boot TDD");
+        post.setVersion(4L);
+        post.setUpdatedAt(Instant.parse("2026-01-01T10:00:00Z"));
+
+        when(postService.getPostVersion(id)).thenReturn(new PostVersion(4, post.getUpdatedAt()));
+        when(postService.getPostById(id)).thenReturn(post);
+
+        mockMvc.perform(get("/api/v1/post/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Thu, 01 Jan 2026 10:00:00 GMT"))
+                .andExpect(jsonPath("$.version").value(4));
     }
 
+    @Test
+    public void updatePost_IfMatch() throws Exception {
+        int id = 1;
+        Post updatedPost = new Post(1, "Updated Title", "Updated Description");
+        updatedPost.setVersion(4L);
+
+        when(postService.updatePost(eq(id), any(Post.class), eq(3L))).thenReturn(updatedPost);
+
+        mockMvc.perform(put("/api/v1/post/{id}", id)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "Updated Title", "description": "Updated Description"}"""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+
+        verify(postService, never()).updatePost(eq(id), any(Post.class));
+    }
+
+    @Test
+    public void updatePost_IfMatchStale() throws Exception {
+        int id = 1;
+
+        when(postService.updatePost(eq(id), any(Post.class), eq(3L)))
+                .thenThrow(new PostVersionConflictException("Post with id 1 is at version 4, not 3!"));
 
+        mockMvc.perform(put("/api/v1/post/{id}", id)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "Updated Title", "description": "Updated Description"}"""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string("Post with id 1 is at version 4, not 3!"));
+    }
+
+    @Test
+    public void updatePost_IfMatchWeak() throws Exception {
+        mockMvc.perform(put("/api/v1/post/{id}", 1)
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "Updated Title", "description": "Updated Description"}"""))
+                .andExpect(status().isPreconditionFailed());
+
+        verifyNoInteractions(postService);
+    }
 }
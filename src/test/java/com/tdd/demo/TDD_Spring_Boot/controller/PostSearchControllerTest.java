@@ -0,0 +1,63 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.search.PostSearchService;
+import com.tdd.demo.TDD_Spring_Boot.search.PostSearchService.SearchResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PostSearchController.class)
+public class PostSearchControllerTest {
+
+    @MockitoBean
+    private PostSearchService postSearchService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void searchPosts() throws Exception {
+        String jsonResponse = """
+                [{"id":2,"title":"Second Post","description":"Mastering TDD"},{"id":1,"title":"First Post","description":"Spring Boot TDD"}]""";
+        when(postSearchService.search("tdd", 0, 20)).thenReturn(new SearchResult(2,
+                List.of(new Post(2, "Second Post", "Mastering TDD"), new Post(1, "First Post", "Spring Boot TDD"))));
+
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "tdd"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Hits", "2"))
+                .andExpect(content().json(jsonResponse, JsonCompareMode.STRICT));
+    }
+
+    @Test
+    public void searchPosts_PageSizeIsCapped() throws Exception {
+        when(postSearchService.search("tdd", 3, 100)).thenReturn(new SearchResult(0, List.of()));
+
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "tdd").param("page", "3").param("size", "5000"))
+                .andExpect(status().isOk());
+
+        verify(postSearchService).search("tdd", 3, 100);
+    }
+
+    @Test
+    public void searchPosts_PageBeyondResultWindowIsRejected() throws Exception {
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "tdd").param("page", "100").param("size", "100"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Page 100 of size 100 is outside the first 10000 results, refine the query instead"));
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "tdd").param("page", "-1"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(postSearchService);
+    }
+}
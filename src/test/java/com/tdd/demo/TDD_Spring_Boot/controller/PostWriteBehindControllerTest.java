@@ -0,0 +1,105 @@
+package com.tdd.demo.TDD_Spring_Boot.controller;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.QueuedPostStatus;
+import com.tdd.demo.TDD_Spring_Boot.exception.WriteQueueFullException;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import com.tdd.demo.TDD_Spring_Boot.service.PostWriteBehindQueue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest({PostWriteBehindController.class, PostController.class})
+public class PostWriteBehindControllerTest {
+
+    private static final UUID TICKET = UUID.fromString("8f9c2a43-5a43-4d6e-9a3c-2f1d0e4b7c11");
+    private static final String REQUEST_JSON = """
+            {"title":"First Post","description":"Spring Boot TDD"}""";
+
+    @MockitoBean
+    private PostWriteBehindQueue writeBehindQueue;
+
+    @MockitoBean
+    private PostService postService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void queuePost() throws Exception {
+        when(writeBehindQueue.enqueue(any())).thenReturn(QueuedPostStatus.pending(TICKET));
+
+        mockMvc.perform(post("/api/v1/post").header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON).content(REQUEST_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/post/queued/" + TICKET))
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(content().json("""
+                        {"ticket":"%s","status":"PENDING"}""".formatted(TICKET), JsonCompareMode.STRICT));
+        verify(postService, never()).savePost(any());
+    }
+
+    @Test
+    public void queuePost_AmongOtherPreferences() throws Exception {
+        when(writeBehindQueue.enqueue(any())).thenReturn(QueuedPostStatus.pending(TICKET));
+
+        mockMvc.perform(post("/api/v1/post").header("Prefer", "return=minimal, Respond-Async; x=1, wait=5")
+                        .contentType(MediaType.APPLICATION_JSON).content(REQUEST_JSON))
+                .andExpect(status().isAccepted());
+        verify(postService, never()).savePost(any());
+    }
+
+    @Test
+    public void savePost_OtherPreferenceIsNotQueued() throws Exception {
+        when(postService.savePost(any())).thenReturn(new Post(1, "First Post", "Spring Boot TDD"));
+
+        mockMvc.perform(post("/api/v1/post").header("Prefer", "return=minimal")
+                        .contentType(MediaType.APPLICATION_JSON).content(REQUEST_JSON))
+                .andExpect(status().isCreated());
+        verify(writeBehindQueue, never()).enqueue(any());
+    }
+
+    @Test
+    public void queuePost_QueueFull() throws Exception {
+        when(writeBehindQueue.enqueue(any())).thenThrow(new WriteQueueFullException("Write-behind queue is full, retry later!"));
+
+        mockMvc.perform(post("/api/v1/post").header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON).content(REQUEST_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    public void getQueuedPost() throws Exception {
+        when(writeBehindQueue.getStatus(TICKET)).thenReturn(Optional.of(QueuedPostStatus.created(TICKET, 7)));
+
+        mockMvc.perform(get("/api/v1/post/queued/{ticket}", TICKET))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"ticket":"%s","status":"CREATED","id":7}""".formatted(TICKET), JsonCompareMode.STRICT));
+    }
+
+    @Test
+    public void getQueuedPost_Unknown() throws Exception {
+        when(writeBehindQueue.getStatus(TICKET)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/post/queued/{ticket}", TICKET))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Queued post " + TICKET + " not found!"));
+    }
+}
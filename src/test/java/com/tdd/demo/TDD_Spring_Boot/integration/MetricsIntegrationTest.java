@@ -0,0 +1,75 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+    }
+
+    @Test
+    public void notFoundIsCounted() throws Exception {
+        double before = errorCount("not_found");
+
+        mockMvc.perform(get("/api/v1/post/{id}", 999)).andExpect(status().isNotFound());
+
+        assertEquals(before + 1, errorCount("not_found"));
+    }
+
+    @Test
+    public void serviceAndStatementTimersAreRecorded() throws Exception {
+        Post post = postRepository.save(new Post(null, "Timed", "Timed Desc"));
+
+        mockMvc.perform(get("/api/v1/posts")).andExpect(status().isOk());
+
+        long serviceCalls = meterRegistry.get("posts.service")
+                .tag("class", "com.tdd.demo.TDD_Spring_Boot.service.PostService").tag("method", "getPosts").timer().count();
+        assertTrue(serviceCalls > 0);
+        assertTrue(meterRegistry.get("posts.db.statements").tag("kind", "statement").timer().count() > 0);
+        assertTrue(meterRegistry.get("hibernate.statements").functionCounters().size() > 0);
+    }
+
+    @Test
+    public void prometheusScrape() throws Exception {
+        mockMvc.perform(get("/api/v1/posts")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("posts_service_seconds_bucket")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections")));
+    }
+
+    private double errorCount(String type) {
+        return meterRegistry.find("posts.errors").tag("type", type).counters().stream()
+                .mapToDouble(counter -> counter.count()).sum();
+    }
+}
@@ -0,0 +1,46 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.TddSpringBootApplication;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class PersistentProfileIntegrationTest {
+
+    @TempDir
+    private Path dataDir;
+
+    @Test
+    public void postsSurviveRestartAndAreWarmedUp() {
+        int id;
+        try (ConfigurableApplicationContext context = start()) {
+            id = context.getBean(PostService.class).savePost(new Post(null, "Durable Post", "Still here")).getId();
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertEquals(ReadinessState.ACCEPTING_TRAFFIC,
+                    context.getBean(ApplicationAvailability.class).getReadinessState());
+            // Preloaded by the warm-up before the application reported ready.
+            assertNotNull(context.getBean(CacheManager.class).getCache(POSTS_CACHE).get(id));
+            assertEquals("Durable Post", context.getBean(PostService.class).getPostById(id).getTitle());
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(TddSpringBootApplication.class)
+                .profiles("persistent")
+                .run("--server.port=0", "--posts.data-dir=" + dataDir, "--posts.warmup.requests=20");
+    }
+}
@@ -0,0 +1,119 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "posts.batch.chunk-size=2")
+@AutoConfigureMockMvc
+public class PostBatchIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+    }
+
+    @Test
+    public void createPosts_ReportsPartialFailure() throws Exception {
+        String tooLong = "x".repeat(300);
+        String requestJson = """
+                [{"title":"Post 1","description":"Desc 1"},
+                 {"title":"%s","description":"Desc 2"},
+                 {"title":"Post 3","description":"Desc 3"}]""".formatted(tooLong);
+
+        mockMvc.perform(post("/api/v1/posts/batch").contentType(MediaType.APPLICATION_JSON).content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andExpect(jsonPath("$[1].error").exists())
+                .andExpect(jsonPath("$[2].status").value("CREATED"))
+                .andExpect(jsonPath("$[2].index").value(2));
+
+        assertEquals(2, postRepository.count());
+    }
+
+    @Test
+    public void createPosts_Ndjson() throws Exception {
+        String requestNdjson = """
+                {"title":"Post 1","description":"Desc 1"}
+                {"title":"Post 2","description":"Desc 2"}
+                {"title":"Post 3","description":"Desc 3"}
+                """;
+
+        mockMvc.perform(post("/api/v1/posts/batch").contentType(MediaType.APPLICATION_NDJSON).content(requestNdjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].status").value(everyItem(is("CREATED"))));
+
+        assertEquals(3, postRepository.count());
+    }
+
+    @Test
+    public void createPosts_NdjsonMalformedLine_KeepsCommittedChunks() throws Exception {
+        String requestNdjson = """
+                {"title":"Post 1","description":"Desc 1"}
+                {"title":"Post 2","description":"Desc 2"}
+                {"title":"Post 3","description":"Desc 3"}
+                {"title":
+                {"title":"Post 5","description":"Desc 5"}
+                """;
+
+        mockMvc.perform(post("/api/v1/posts/batch").contentType(MediaType.APPLICATION_NDJSON).content(requestNdjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0:3].status").value(everyItem(is("CREATED"))))
+                .andExpect(jsonPath("$[3].index").value(3))
+                .andExpect(jsonPath("$[3].status").value("FAILED"))
+                .andExpect(jsonPath("$[3].error").exists());
+
+        assertEquals(3, postRepository.count());
+    }
+
+    @Test
+    public void updateAndDeletePosts() throws Exception {
+        Post post1 = postRepository.save(new Post(null, "Old 1", "Desc 1"));
+        Post post2 = postRepository.save(new Post(null, "Old 2", "Desc 2"));
+
+        String updateJson = """
+                [{"id":%d,"title":"New 1","description":"New Desc 1"},
+                 {"id":%d,"title":"New 2","description":"New Desc 2"},
+                 {"id":999999,"title":"Missing","description":"Missing"}]""".formatted(post1.getId(), post2.getId());
+
+        mockMvc.perform(put("/api/v1/posts/batch").contentType(MediaType.APPLICATION_JSON).content(updateJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$[1].status").value("UPDATED"))
+                .andExpect(jsonPath("$[2].status").value("NOT_FOUND"));
+
+        assertEquals("New 1", postRepository.findById(post1.getId()).orElseThrow().getTitle());
+        assertEquals("New 2", postRepository.findById(post2.getId()).orElseThrow().getTitle());
+
+        mockMvc.perform(delete("/api/v1/posts/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[%d,999999]".formatted(post1.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("DELETED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+
+        assertTrue(postRepository.findById(post1.getId()).isEmpty());
+        assertEquals(1, postRepository.count());
+    }
+}
@@ -0,0 +1,103 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.exception.PostNotFoundException;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class PostCacheIntegrationTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Cache cache;
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+        cache = cacheManager.getCache(POSTS_CACHE);
+    }
+
+    @Test
+    public void getPostById_IsCachedAfterFirstRead() {
+        Post saved = postService.savePost(new Post(null, "Cached", "Cached Desc"));
+        cache.evict(saved.getId());
+
+        postService.getPostById(saved.getId());
+        assertNotNull(cache.get(saved.getId()));
+
+        double hitsBefore = cacheGets("hit");
+        Post found = postService.getPostById(saved.getId());
+        assertEquals("Cached", found.getTitle());
+        assertEquals(hitsBefore + 1, cacheGets("hit"));
+    }
+
+    @Test
+    public void getPostById_MissIsCached() {
+        assertThrows(PostNotFoundException.class, () -> postService.getPostById(4242));
+
+        Cache.ValueWrapper negative = cache.get(4242);
+        assertNotNull(negative);
+        assertNull(negative.get());
+        assertThrows(PostNotFoundException.class, () -> postService.getPostById(4242));
+    }
+
+    @Test
+    public void writesKeepCacheConsistent() {
+        Post saved = postService.savePost(new Post(null, "Old", "Old Desc"));
+        assertNull(cache.get(saved.getId()));
+        assertEquals("Old", postService.getPostById(saved.getId()).getTitle());
+
+        postService.updatePost(saved.getId(), new Post(null, "New", "New Desc"));
+        assertNull(cache.get(saved.getId()));
+        assertEquals("New", postService.getPostById(saved.getId()).getTitle());
+
+        postService.deletePost(saved.getId());
+        assertNull(cache.get(saved.getId()));
+        assertThrows(PostNotFoundException.class, () -> postService.getPostById(saved.getId()));
+    }
+
+    @Test
+    public void writesOnlyEvictOnceCommitted() {
+        Post saved = postService.savePost(new Post(null, "Old", "Old Desc"));
+        postService.getPostById(saved.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            postService.updatePost(saved.getId(), new Post(null, "New", "New Desc"));
+            assertEquals("Old", cache.get(saved.getId(), Post.class).getTitle());
+            status.setRollbackOnly();
+        });
+
+        assertEquals("Old", cache.get(saved.getId(), Post.class).getTitle());
+        assertEquals("Old", postService.getPostById(saved.getId()).getTitle());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", POSTS_CACHE).tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,158 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.jayway.jsonpath.JsonPath;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangeLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PostChangeFeedIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostChangeLog changeLog;
+
+    @Test
+    public void committedWritesAreFedInOrder() throws Exception {
+        long position = position();
+        int id = createPost("Feed");
+        mockMvc.perform(put("/api/v1/post/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title":"Feed 2","description":"Desc"}"""))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/post/{id}", id))
+                .andExpect(status().isNoContent());
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts/changes").param("since", Long.toString(position)))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].seq").value(position + 1))
+                .andExpect(jsonPath("$[0].type").value("CREATED"))
+                .andExpect(jsonPath("$[0].postId").value(id))
+                .andExpect(jsonPath("$[0].version").value(0))
+                .andExpect(jsonPath("$[1].seq").value(position + 2))
+                .andExpect(jsonPath("$[1].type").value("UPDATED"))
+                .andExpect(jsonPath("$[1].version").value(1))
+                .andExpect(jsonPath("$[2].seq").value(position + 3))
+                .andExpect(jsonPath("$[2].type").value("DELETED"))
+                .andExpect(jsonPath("$[2].version").doesNotExist());
+    }
+
+    @Test
+    public void failedWritesAreNotFed() throws Exception {
+        int id = createPost("Stale");
+        long position = position();
+
+        mockMvc.perform(put("/api/v1/post/{id}", id).header("If-Match", "\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title":"Stale 2","description":"Desc"}"""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/v1/post/{id}", Integer.MAX_VALUE))
+                .andExpect(status().isNotFound());
+
+        assertEquals(position, position());
+    }
+
+    @Test
+    public void longPollIsAnsweredByTheNextCommit() throws Exception {
+        long position = position();
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts/changes")
+                        .param("since", Long.toString(position))
+                        .param("wait", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        int id = createPost("Awaited");
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].seq").value(position + 1))
+                .andExpect(jsonPath("$[0].postId").value(id));
+    }
+
+    @Test
+    public void eventStreamResumesAfterTheLastEventId() throws Exception {
+        long position = position();
+        createPost("Missed");
+        int id = createPost("Seen");
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts/changes")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Last-Event-ID", Long.toString(position + 1)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        int next = createPost("Live");
+
+        // The emitter writes an event's lines one at a time, so wait for the last event's data.
+        String stream = awaitContent(mvcResult, "\"postId\":" + next);
+        assertTrue(!stream.contains("id:" + (position + 1) + "\n"), stream);
+        assertTrue(stream.contains("id:" + (position + 2) + "\nevent:created\ndata:"), stream);
+        assertTrue(stream.contains("\"postId\":" + id), stream);
+        assertTrue(stream.contains("id:" + (position + 3) + "\nevent:created\ndata:"), stream);
+    }
+
+    @Test
+    public void prunedPositionIsGone() throws Exception {
+        createPost("Pruned");
+        changeLog.pruneBefore(Instant.now().plus(1, ChronoUnit.DAYS));
+
+        mockMvc.perform(get("/api/v1/posts/changes").param("since", "0"))
+                .andExpect(status().isGone());
+
+        long position = position();
+        int id = createPost("After pruning");
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts/changes").param("since", Long.toString(position)))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].postId").value(id));
+    }
+
+    private long position() throws Exception {
+        return Long.parseLong(mockMvc.perform(get("/api/v1/posts/changes/position"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private int createPost(String title) throws Exception {
+        String body = mockMvc.perform(post("/api/v1/post")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title":"%s","description":"Desc"}""".formatted(title)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.id");
+    }
+
+    private static String awaitContent(MvcResult mvcResult, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            String content = mvcResult.getResponse().getContentAsString();
+            if (content.contains(expected) || System.currentTimeMillis() > deadline) {
+                return content;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
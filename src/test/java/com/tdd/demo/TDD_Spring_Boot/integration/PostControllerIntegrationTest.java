@@ -7,11 +7,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -59,6 +63,154 @@ public class PostControllerIntegrationTest {
                 .andExpect(jsonPath("$[1].title").value("Post 2"));
     }
 
+    @Test
+    public void getAllPosts_Paginated() throws Exception {
+        postRepository.save(new Post(null, "Post 1", "Desc 1"));
+        postRepository.save(new Post(null, "Post 2", "Desc 2"));
+        postRepository.save(new Post(null, "Post 3", "Desc 3"));
+
+        String cursor = mockMvc.perform(get("/api/v1/posts").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Post 1"))
+                .andExpect(jsonPath("$[1].title").value("Post 2"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/v1/posts").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Post 3"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void getAllPosts_Fields() throws Exception {
+        String longDescription = "x".repeat(10_000);
+        postRepository.save(new Post(null, "Post 1", longDescription));
+        postRepository.save(new Post(null, "Post 2", "Desc 2"));
+
+        mockMvc.perform(get("/api/v1/posts").param("fields", "id,title").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Post 1"))
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].version").doesNotExist())
+                .andExpect(header().exists("X-Next-Cursor"));
+
+        mockMvc.perform(get("/api/v1/posts").param("fields", "description").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].description").value(longDescription))
+                .andExpect(jsonPath("$[0].id").doesNotExist());
+    }
+
+    @Test
+    public void getAllPosts_NewestFirst() throws Exception {
+        postRepository.save(new Post(null, "Post 1", "Desc 1"));
+        postRepository.save(new Post(null, "Post 2", "Desc 2"));
+        postRepository.save(new Post(null, "Post 3", "Desc 3"));
+
+        String cursor = mockMvc.perform(get("/api/v1/posts").param("sort", "-createdAt").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Post 3"))
+                .andExpect(jsonPath("$[0].createdAt").exists())
+                .andExpect(jsonPath("$[1].title").value("Post 2"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/v1/posts").param("sort", "-createdAt").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Post 1"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        // A cursor only continues the order it came from.
+        mockMvc.perform(get("/api/v1/posts").param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/posts").param("sort", "description"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getAllPosts_TitlePrefixAndCreatedRange() throws Exception {
+        postRepository.save(new Post(null, "Spring b", "Desc"));
+        postRepository.save(new Post(null, "Summer", "Desc"));
+        Post first = postRepository.save(new Post(null, "Spring a", "Desc"));
+        postRepository.save(new Post(null, "Spring c", "Desc"));
+
+        String cursor = mockMvc.perform(get("/api/v1/posts").param("sort", "title").param("titlePrefix", "Spr")
+                        .param("fields", "id,title").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Spring a"))
+                .andExpect(jsonPath("$[1].title").value("Spring b"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+        mockMvc.perform(get("/api/v1/posts").param("sort", "title").param("titlePrefix", "Spr")
+                        .param("fields", "id,title").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Spring c"));
+
+        mockMvc.perform(get("/api/v1/posts").param("createdFrom", first.getCreatedAt().toString())
+                        .param("titlePrefix", "Spring"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Spring a"))
+                .andExpect(jsonPath("$[1].title").value("Spring c"));
+    }
+
+    @Test
+    public void getPostsByIds() throws Exception {
+        Post post1 = postRepository.save(new Post(null, "Post 1", "Desc 1"));
+        Post post2 = postRepository.save(new Post(null, "Post 2", "Desc 2"));
+        int missing = post2.getId() + 100;
+
+        mockMvc.perform(get("/api/v1/posts").param("ids", post2.getId() + "," + missing + "," + post1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts.length()").value(2))
+                .andExpect(jsonPath("$.posts[0].title").value("Post 2"))
+                .andExpect(jsonPath("$.posts[1].title").value("Post 1"))
+                .andExpect(jsonPath("$.missing[0]").value(missing));
+
+        mockMvc.perform(post("/api/v1/posts/lookup").param("fields", "title")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + post1.getId() + "," + missing + "]"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"posts":[{"title":"Post 1"}],"missing":[%d]}""".formatted(missing), JsonCompareMode.STRICT));
+    }
+
+    @Test
+    public void streamAllPosts_Fields() throws Exception {
+        postRepository.save(new Post(null, "Post 1", "Desc 1"));
+        postRepository.save(new Post(null, "Post 2", "Desc 2"));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts").param("fields", "title")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("{\"title\":\"Post 1\"}\n{\"title\":\"Post 2\"}", body.strip());
+    }
+
+    @Test
+    public void streamAllPosts() throws Exception {
+        postRepository.save(new Post(null, "Post 1", "Desc 1"));
+        postRepository.save(new Post(null, "Post 2", "Desc 2"));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"title\":\"Post 1\""));
+        assertTrue(lines[1].contains("\"title\":\"Post 2\""));
+    }
+
     @Test
     public void getPostById() throws Exception {
         Post post = postRepository.save(new Post(null, "Single Post", "Single Desc"));
@@ -73,7 +225,9 @@ public class PostControllerIntegrationTest {
     public void getPostById_NotFound() throws Exception {
         mockMvc.perform(get("/api/v1/post/{id}", 999))
                 .andExpect(status().isNotFound())
-                .andExpect(content().string(containsString("Post with id 999 not found!")));
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.title").value("Not Found"));
     }
 
     @Test
@@ -113,7 +267,9 @@ public class PostControllerIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(updateJson))
                 .andExpect(status().isNotFound())
-                .andExpect(content().string(containsString("Post with id 999 not found!")));
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.title").value("Not Found"));
     }
 
     @Test
@@ -131,6 +287,64 @@ public class PostControllerIntegrationTest {
     public void deletePost_NotFound() throws Exception {
         mockMvc.perform(delete("/api/v1/post/{id}", 999))
                 .andExpect(status().isNotFound())
-                .andExpect(content().string(containsString("Post with id 999 not found!")));
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.title").value("Not Found"));
+    }
+
+    @Test
+    public void conditionalRequests() throws Exception {
+        Post post = postRepository.save(new Post(null, "Old Title", "Old Desc"));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/post/{id}", post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = result.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        String updateJson = """
+            {"title": "New Title", "description": "New Desc"}""";
+        String newEtag = mockMvc.perform(put("/api/v1/post/{id}", post.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(updateJson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+
+        // A second writer still holding the old tag must not overwrite the first one.
+        mockMvc.perform(put("/api/v1/post/{id}", post.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(updateJson))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, newEtag))
+                .andExpect(jsonPath("$.title").value("New Title"));
+    }
+
+    @Test
+    public void conditionalPage() throws Exception {
+        Post post = postRepository.save(new Post(null, "Post 1", "Desc 1"));
+
+        String etag = mockMvc.perform(get("/api/v1/posts"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/v1/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        post.setTitle("Post 1 edited");
+        postRepository.save(post);
+        mockMvc.perform(get("/api/v1/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Post 1 edited"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.search.PostSearchIndex;
+import com.tdd.demo.TDD_Spring_Boot.search.PostSearchService;
+import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PostSearchIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostSearchService postSearchService;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+        postSearchService.rebuild();
+    }
+
+    @Test
+    public void searchRanksTitleMatchesFirst() throws Exception {
+        postService.savePost(new Post(null, "Cooking pasta", "A post about spring vegetables"));
+        Post springPost = postService.savePost(new Post(null, "Spring Boot testing", "Mastering TDD"));
+        postService.savePost(new Post(null, "Gardening", "Nothing relevant"));
+        postSearchIndex.commit();
+
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "spring"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Hits", "2"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(springPost.getId()))
+                .andExpect(jsonPath("$[1].title").value("Cooking pasta"));
+    }
+
+    @Test
+    public void indexFollowsUpdatesAndDeletes() throws Exception {
+        Post post = postService.savePost(new Post(null, "Old headline", "Old body"));
+        Post other = postService.savePost(new Post(null, "Another headline", "Another body"));
+        postService.updatePost(post.getId(), new Post(null, "Fresh headline", "Fresh body"));
+        postService.deletePost(other.getId());
+        postSearchIndex.commit();
+
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "old"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "headline"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Fresh headline"));
+    }
+
+    @Test
+    public void searchIsPaginated() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            postService.savePost(new Post(null, "Paged post " + i, "Pagination"));
+        }
+        postSearchIndex.commit();
+
+        mockMvc.perform(get("/api/v1/posts/search").param("q", "pagination").param("page", "2").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Hits", "5"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+}
@@ -3,14 +3,22 @@ package com.tdd.demo.TDD_Spring_Boot.integration;
 import com.tdd.demo.TDD_Spring_Boot.model.Post;
 import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
 import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import com.tdd.demo.TDD_Spring_Boot.service.SingleFlight;
+import com.tdd.demo.TDD_Spring_Boot.snapshot.PostSnapshots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
 import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Duration;
 
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // use H2
@@ -19,11 +27,16 @@ public class PostServiceIntegrationTest {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private PostService postService;
 
     @BeforeEach
     public void setUp() {
-        postService = new PostService(postRepository);
+        postService = new PostService(postRepository, eventPublisher,
+                new SingleFlight<>("posts.lookups", Duration.ofSeconds(2), new SimpleMeterRegistry()),
+                new ConcurrentMapCacheManager(POSTS_CACHE), 500, mock(PostSnapshots.class));
         postRepository.deleteAll();
     }
 
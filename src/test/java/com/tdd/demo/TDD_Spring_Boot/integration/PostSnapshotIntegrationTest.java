@@ -0,0 +1,106 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.snapshot.PostSnapshots;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "posts.snapshot.enabled=true")
+@AutoConfigureMockMvc
+public class PostSnapshotIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostSnapshots postSnapshots;
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+        postSnapshots.rebuild();
+    }
+
+    @Test
+    public void readsComeFromTheSnapshotUntilItIsRebuilt() throws Exception {
+        Post post = postRepository.save(new Post(null, "Snapshot", "Served from disk"));
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/api/v1/posts/snapshot"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts").value(1));
+        // Gone from the database, still in the snapshot.
+        postRepository.deleteAllInBatch();
+
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.title").value("Snapshot"))
+                .andExpect(jsonPath("$.description").value("Served from disk"));
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()).param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"title":"Snapshot"}""", JsonCompareMode.STRICT));
+        mockMvc.perform(get("/api/v1/posts").param("ids", post.getId() + ",0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts[0].title").value("Snapshot"))
+                .andExpect(jsonPath("$.missing[0]").value(0));
+    }
+
+    @Test
+    public void pagesInIdOrderComeFromTheSnapshot() throws Exception {
+        Post first = postRepository.save(new Post(null, "Post 1", "Desc 1"));
+        Post second = postRepository.save(new Post(null, "Post 2", "Desc 2"));
+        postSnapshots.rebuild();
+        postRepository.deleteAllInBatch();
+
+        String cursor = mockMvc.perform(get("/api/v1/posts").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(first.getId()))
+                .andExpect(jsonPath("$[0].description").value("Desc 1"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+        mockMvc.perform(get("/api/v1/posts").param("cursor", cursor).param("fields", "id,title"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(content().json("""
+                        [{"id":%d,"title":"Post 2"}]""".formatted(second.getId()), JsonCompareMode.STRICT));
+    }
+
+    @Test
+    public void streamsJsonLinesFromTheSnapshot() throws Exception {
+        Post first = postRepository.save(new Post(null, "Post 1", "Desc 1"));
+        postRepository.save(new Post(null, "Post 2", "Desc 2"));
+        postSnapshots.rebuild();
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(first.getId(), Integer.parseInt(lines[0].replaceAll(".*\"id\":(\\d+).*", "$1")));
+    }
+}
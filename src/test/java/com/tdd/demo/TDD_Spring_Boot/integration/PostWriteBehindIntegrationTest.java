@@ -0,0 +1,97 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.jayway.jsonpath.JsonPath;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PostWriteBehindIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+    }
+
+    @Test
+    public void queuedPostsAreWritten() throws Exception {
+        List<String> locations = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            locations.add(mockMvc.perform(post("/api/v1/post").header("Prefer", "respond-async")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {"title":"Post %d","description":"Desc %d"}""".formatted(i, i)))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.status").value("PENDING"))
+                    .andReturn().getResponse().getHeader("Location"));
+        }
+
+        for (String location : locations) {
+            Integer id = awaitCreated(location);
+            mockMvc.perform(get("/api/v1/post/{id}", id))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.title").exists());
+        }
+        assertEquals(20, postRepository.count());
+        assertTrue(meterRegistry.get("posts.writebehind.flush").timer().count() >= 1);
+        assertEquals(0, meterRegistry.get("posts.writebehind.queue.depth").gauge().value());
+    }
+
+    @Test
+    public void invalidPostIsReportedAsFailed() throws Exception {
+        String location = mockMvc.perform(post("/api/v1/post").header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title":"%s","description":"Desc"}""".formatted("x".repeat(300))))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader("Location");
+
+        String body = awaitDone(location);
+        assertEquals("FAILED", JsonPath.read(body, "$.status"));
+        assertEquals(0, postRepository.count());
+    }
+
+    private Integer awaitCreated(String location) throws Exception {
+        String body = awaitDone(location);
+        assertEquals("CREATED", JsonPath.read(body, "$.status"), body);
+        return JsonPath.read(body, "$.id");
+    }
+
+    private String awaitDone(String location) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            String body = mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            if (!"PENDING".equals(JsonPath.read(body, "$.status")) || System.currentTimeMillis() > deadline) {
+                return body;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "posts.rate-limit.enabled=true",
+        "posts.rate-limit.routes[0].name=writes",
+        "posts.rate-limit.routes[0].pattern=/api/v1/post/**",
+        "posts.rate-limit.routes[0].methods=POST",
+        "posts.rate-limit.routes[0].rate=0.01",
+        "posts.rate-limit.routes[0].burst=1",
+        "posts.rate-limit.routes[1].name=reads",
+        "posts.rate-limit.routes[1].pattern=/api/v1/**",
+        "posts.rate-limit.routes[1].rate=0.1",
+        "posts.rate-limit.routes[1].burst=3",
+        "posts.rate-limit.routes[1].max-concurrency=10"
+})
+@AutoConfigureMockMvc
+public class RateLimitIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void clientOverItsRateIsToldWhenToRetry() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/v1/posts").header("X-Client-Id", "alice"))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/v1/posts").header("X-Client-Id", "alice"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "10"))
+                .andExpect(content().string("Rate limit exceeded for reads"));
+        mockMvc.perform(get("/api/v1/posts").header("X-Client-Id", "bob"))
+                .andExpect(status().isOk());
+
+        assertEquals(1, meterRegistry.get("posts.ratelimit.rejected")
+                .tag("route", "reads").tag("reason", "rate").counter().count());
+        assertEquals(0, meterRegistry.get("posts.concurrency.in.flight").tag("route", "reads").gauge().value());
+    }
+
+    @Test
+    public void routesAreLimitedSeparately() throws Exception {
+        mockMvc.perform(post("/api/v1/post").header("X-Client-Id", "carol")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title":"Limited","description":"Desc"}"""))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/v1/post").header("X-Client-Id", "carol")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title":"Limited","description":"Desc"}"""))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "100"));
+
+        mockMvc.perform(get("/api/v1/posts").header("X-Client-Id", "carol"))
+                .andExpect(status().isOk());
+    }
+}
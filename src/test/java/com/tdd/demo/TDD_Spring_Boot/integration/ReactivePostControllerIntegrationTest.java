@@ -0,0 +1,169 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostChange;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangeLog;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+public class ReactivePostControllerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostChangeLog changeLog;
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+    }
+
+    @Test
+    public void crud() {
+        Post created = webTestClient.post().uri("/api/v1/post")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"title": "First Post", "description": "Reactive"}""")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody(Post.class).returnResult().getResponseBody();
+
+        // Rows written through R2DBC are visible to JPA, and the other way round.
+        assertEquals("First Post", postRepository.findById(created.getId()).orElseThrow().getTitle());
+        Post other = postRepository.save(new Post(null, "Second Post", "JPA"));
+        webTestClient.get().uri("/api/v1/post/{id}", other.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.title").isEqualTo("Second Post");
+
+        webTestClient.put().uri("/api/v1/post/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"title": "New Title", "description": "New Desc"}""")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody().jsonPath("$.title").isEqualTo("New Title");
+        webTestClient.put().uri("/api/v1/post/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"title": "Lost Update", "description": "Lost"}""")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        webTestClient.get().uri("/api/v1/post/{id}", created.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.delete().uri("/api/v1/post/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+        assertFalse(postRepository.existsById(created.getId()));
+    }
+
+    @Test
+    public void writesAreLoggedWithTheirTransaction() {
+        long since = changeLog.lastSeq();
+        Post created = webTestClient.post().uri("/api/v1/post")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"title": "Logged", "description": "Reactive"}""")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Post.class).returnResult().getResponseBody();
+        // A rejected write rolls back without a change.
+        webTestClient.put().uri("/api/v1/post/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, "\"7\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"title": "Stale", "description": "Stale"}""")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        webTestClient.delete().uri("/api/v1/post/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        List<PostChange> changes = changeLog.changesSince(since, 10);
+        assertEquals(List.of(PostChangedEvent.Type.CREATED, PostChangedEvent.Type.DELETED),
+                changes.stream().map(PostChange::type).toList());
+        assertEquals(List.of(since + 1, since + 2), changes.stream().map(PostChange::seq).toList());
+        assertEquals(0L, changes.getFirst().version());
+    }
+
+    @Test
+    public void notFoundIsMappedByGlobalExceptionHandler() {
+        webTestClient.get().uri("/api/v1/post/{id}", 999)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody().jsonPath("$.status").isEqualTo(404);
+        webTestClient.delete().uri("/api/v1/post/{id}", 999)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void getPosts_Paginated() {
+        for (int i = 1; i <= 3; i++) {
+            postRepository.save(new Post(null, "Post " + i, "Desc " + i));
+        }
+
+        String cursor = webTestClient.get().uri("/api/v1/posts?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(2)
+                .returnResult().getResponseHeaders().getFirst("X-Next-Cursor");
+
+        webTestClient.get().uri("/api/v1/posts?limit=2&cursor={cursor}", cursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBody().jsonPath("$[0].title").isEqualTo("Post 3");
+    }
+
+    @Test
+    public void streamPosts() {
+        for (int i = 1; i <= 50; i++) {
+            postRepository.save(new Post(null, "Post " + i, "Desc " + i));
+        }
+
+        Flux<Post> posts = webTestClient.get().uri("/api/v1/posts")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Post.class).getResponseBody();
+
+        // Take only part of the stream; the rest is never pulled from the database.
+        StepVerifier.create(posts.take(10))
+                .expectNextMatches(post -> post.getTitle().equals("Post 1"))
+                .expectNextCount(9)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,133 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two embedded H2 databases stand in for a primary and a replica; "replication" is done by hand so that
+ * the replica can be made to lag. A second replica is unreachable.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "posts.replicas.enabled=true",
+        "posts.replicas.urls[0]=jdbc:h2:tcp://localhost:1/unreachable",
+        "posts.replicas.urls[1]=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+        "posts.replicas.connect-timeout=250ms"
+})
+@AutoConfigureMockMvc
+public class ReplicaRoutingIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static JdbcTemplate replica;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeAll
+    public static void createReplica() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        replica = new JdbcTemplate(dataSource);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+        replica.update("delete from posts");
+        cacheManager.getCache(POSTS_CACHE).clear();
+    }
+
+    @Test
+    public void readsGoToReplicaAndWritesToPrimary() throws Exception {
+        Post post = postService.savePost(new Post(null, "Primary", "Written to the primary"));
+        assertEquals(0, replica.queryForObject("select count(*) from posts", Integer.class));
+
+        replicate(post, "Replica");
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Replica"));
+        mockMvc.perform(get("/api/v1/posts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Replica"));
+    }
+
+    @Test
+    public void clientReadsItsOwnWritesFromPrimary() throws Exception {
+        Post post = postService.savePost(new Post(null, "Old", "Old Desc"));
+        replicate(post, "Old");
+
+        Cookie cookie = mockMvc.perform(put("/api/v1/post/{id}", post.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "New", "description": "New Desc"}"""))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("posts-read-primary-until");
+        assertNotNull(cookie);
+        cacheManager.getCache(POSTS_CACHE).clear();
+
+        // The writer sees its update while the replica still lags; everybody else sees the replica.
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()).cookie(cookie))
+                .andExpect(jsonPath("$.title").value("New"));
+        cacheManager.getCache(POSTS_CACHE).clear();
+        mockMvc.perform(get("/api/v1/post/{id}", post.getId()))
+                .andExpect(jsonPath("$.title").value("Old"));
+    }
+
+    @Test
+    public void unreachableReplicaIsSkipped() throws Exception {
+        Post post = postService.savePost(new Post(null, "Primary", "Written to the primary"));
+        replicate(post, "Replica");
+
+        for (int i = 0; i < 4; i++) {
+            cacheManager.getCache(POSTS_CACHE).clear();
+            mockMvc.perform(get("/api/v1/post/{id}", post.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.title").value("Replica"));
+        }
+        assertTrue(Metrics.globalRegistry.get("posts.db.routing").tag("target", "failover").counter().count() > 0);
+    }
+
+    private void replicate(Post post, String title) {
+        replica.update("insert into posts (id, title, description, version, created_at, updated_at) values (?, ?, ?, ?, ?, ?)",
+                post.getId(), title, post.getDescription(), post.getVersion(), Timestamp.from(post.getCreatedAt()),
+                Timestamp.from(post.getUpdatedAt()));
+        // Saving put the primary's copy into the cache; reads only reach a database on a miss.
+        cacheManager.getCache(POSTS_CACHE).evict(post.getId());
+    }
+}
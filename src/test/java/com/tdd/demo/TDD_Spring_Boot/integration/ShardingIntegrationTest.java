@@ -0,0 +1,226 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.jayway.jsonpath.JsonPath;
+import com.tdd.demo.TDD_Spring_Boot.TddSpringBootApplication;
+import com.tdd.demo.TDD_Spring_Boot.datasource.ShardRing;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangeFeed;
+import com.tdd.demo.TDD_Spring_Boot.service.PostChangeLog;
+import io.micrometer.core.instrument.Metrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Three embedded H2 databases stand in for the shards; each is also read directly to see where rows went.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ShardingIntegrationTest.SHARD_0,
+        "posts.sharding.enabled=true",
+        "posts.sharding.urls[0]=" + ShardingIntegrationTest.SHARD_1,
+        "posts.sharding.urls[1]=" + ShardingIntegrationTest.SHARD_2,
+        "posts.stream.fetch-size=4"
+})
+@AutoConfigureMockMvc
+public class ShardingIntegrationTest {
+
+    static final String SHARD_0 = "jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1 = "jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1";
+    static final String SHARD_2 = "jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1";
+
+    private static final List<JdbcTemplate> SHARDS = List.of(shard(SHARD_0), shard(SHARD_1), shard(SHARD_2));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ShardRing shardRing;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<PostChangeLog> changeLog;
+
+    @Autowired
+    private ObjectProvider<PostChangeFeed> changeFeed;
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+        cacheManager.getCache(POSTS_CACHE).clear();
+    }
+
+    @Test
+    public void postsAreSpreadOverTheShardsById() throws Exception {
+        List<Integer> ids = createPosts(30);
+        cacheManager.getCache(POSTS_CACHE).clear();
+
+        for (int shard = 0; shard < SHARDS.size(); shard++) {
+            List<Integer> stored = SHARDS.get(shard).queryForList("select id from posts", Integer.class);
+            assertFalse(stored.isEmpty(), "shard " + shard + " holds no posts");
+            for (Integer id : stored) {
+                assertEquals(shard, shardRing.shardFor(id));
+            }
+        }
+        assertEquals(30, postRepository.count());
+        assertEquals(30, ids.stream().distinct().count());
+
+        for (Integer id : ids) {
+            mockMvc.perform(get("/api/v1/post/{id}", id))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(id));
+        }
+    }
+
+    @Test
+    public void pagesAndStreamsAreMergedInIdOrder() throws Exception {
+        List<Integer> ids = createPosts(10);
+
+        List<Integer> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/v1/posts").param("limit", "3");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            List<Integer> page = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+            paged.addAll(page);
+            cursor = result.getResponse().getHeader("X-Next-Cursor");
+        } while (cursor != null);
+        assertEquals(ids.stream().sorted().toList(), paged);
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/posts").param("fields", "id")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> streamed = Arrays.stream(body.split("\n"))
+                .map(line -> (Integer) JsonPath.read(line, "$.id"))
+                .toList();
+        assertEquals(ids.stream().sorted().toList(), streamed);
+    }
+
+    @Test
+    public void updatesAndDeletesGoToTheOwningShard() throws Exception {
+        int id = createPosts(1).getFirst();
+        JdbcTemplate owner = SHARDS.get(shardRing.shardFor(id));
+
+        mockMvc.perform(put("/api/v1/post/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title":"Updated","description":"On its shard"}"""))
+                .andExpect(status().isOk());
+        assertEquals("Updated", owner.queryForObject("select title from posts where id = ?", String.class, id));
+
+        mockMvc.perform(delete("/api/v1/post/{id}", id)).andExpect(status().isNoContent());
+        assertEquals(0, owner.queryForObject("select count(*) from posts", Integer.class));
+    }
+
+    @Test
+    public void batchCreateSpanningShards() throws Exception {
+        long batchesBefore = jdbcBatches();
+        mockMvc.perform(post("/api/v1/posts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"title":"Post 1"},{"title":"Post 2"},{"title":"Post 3"},{"title":"Post 4"},
+                                 {"title":"Post 5"},{"title":"Post 6"},{"title":"Post 7"},{"title":"Post 8"}]"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].status", everyItem(is("CREATED"))));
+
+        assertEquals(8, postRepository.count());
+        // One JDBC batch per shard, rather than one insert per post after the whole chunk failed.
+        assertTrue(jdbcBatches() - batchesBefore <= SHARDS.size());
+    }
+
+    @Test
+    public void transactionCannotSpanShards() throws Exception {
+        List<Integer> ids = createPosts(10);
+        cacheManager.getCache(POSTS_CACHE).clear();
+        int first = ids.getFirst();
+        int elsewhere = ids.stream()
+                .filter(id -> shardRing.shardFor(id) != shardRing.shardFor(first))
+                .findFirst().orElseThrow();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            postRepository.findById(first);
+            postRepository.findById(elsewhere);
+        }));
+    }
+
+    @Test
+    public void changeFeedIsLeftOut() {
+        assertNull(changeLog.getIfAvailable());
+        assertNull(changeFeed.getIfAvailable());
+    }
+
+    @Test
+    public void changedLayoutIsRefused() {
+        assertEquals(List.of(Map.of("SHARD_COUNT", 3, "VIRTUAL_NODES", 64)),
+                SHARDS.getFirst().queryForList("select shard_count, virtual_nodes from shard_layout"));
+
+        SpringApplicationBuilder twoShards = new SpringApplicationBuilder(TddSpringBootApplication.class);
+        Exception ex = assertThrows(Exception.class, () -> twoShards.run("--server.port=0",
+                "--spring.datasource.url=" + SHARD_0, "--posts.sharding.enabled=true", "--posts.sharding.urls[0]=" + SHARD_1));
+        assertTrue(NestedExceptionUtils.getMostSpecificCause(ex).getMessage()
+                .startsWith("posts.sharding configures 2 shards with 64 virtual nodes, but the posts are stored over 3 shards"));
+    }
+
+    private static long jdbcBatches() {
+        return Metrics.globalRegistry.get("posts.db.statements").tag("kind", "batch").timer().count();
+    }
+
+    private List<Integer> createPosts(int count) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            String body = mockMvc.perform(post("/api/v1/post")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {"title":"Post %d","description":"Desc %d"}""".formatted(i, i)))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            ids.add(JsonPath.read(body, "$.id"));
+        }
+        return ids;
+    }
+
+    private static JdbcTemplate shard(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    }
+}
@@ -0,0 +1,66 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.service.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.tomcat.threads.max=20")
+@ActiveProfiles("virtual-threads")
+public class VirtualThreadsIntegrationTest {
+
+    private static final int CLIENTS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @MockitoSpyBean
+    private PostService postService;
+
+    @Test
+    public void servesMoreInFlightRequestsThanPlatformThreadLimit() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        // Stand-in for a slow database: every lookup holds its request thread for 300 ms.
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(300);
+                assertTrue(Thread.currentThread().isVirtual());
+                return new Post(invocation.getArgument(0), "Slow Post", "Slow Desc");
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }).when(postService).getPostById(anyInt());
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 1; i <= CLIENTS; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/post/" + i)).build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        responses.forEach(response -> assertEquals(200, response.join().statusCode()));
+
+        // With platform threads Tomcat could never run more than server.tomcat.threads.max (20) at once.
+        assertTrue(maxInFlight.get() > 20, "max in-flight requests was " + maxInFlight.get());
+    }
+}
@@ -0,0 +1,101 @@
+package com.tdd.demo.TDD_Spring_Boot.integration;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class WireFormatIntegrationTest {
+
+    private static final int POSTS = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+        List<Post> posts = new ArrayList<>();
+        for (int i = 1; i <= POSTS; i++) {
+            posts.add(new Post(null, "Post " + i, "Description of post " + i));
+        }
+        postRepository.saveAll(posts);
+    }
+
+    @Test
+    public void getPosts_NegotiatesBinaryFormats() throws Exception {
+        byte[] json = get("/api/v1/posts", "application/json", null).body();
+        byte[] cbor = get("/api/v1/posts", "application/cbor", null).body();
+        byte[] smile = get("/api/v1/posts", "application/x-jackson-smile", null).body();
+
+        assertEquals(POSTS, readPosts(JsonMapper.builder().build(), json).length);
+        assertEquals(POSTS, readPosts(CBORMapper.builder().build(), cbor).length);
+        assertEquals(POSTS, readPosts(SmileMapper.builder().build(), smile).length);
+        assertTrue(cbor.length < json.length, "cbor " + cbor.length + " vs json " + json.length);
+        assertTrue(smile.length < json.length, "smile " + smile.length + " vs json " + json.length);
+    }
+
+    @Test
+    public void getPostById_NegotiatesCbor() throws Exception {
+        Post post = postRepository.findAll().getFirst();
+
+        HttpResponse<byte[]> response = get("/api/v1/post/" + post.getId(), "application/cbor", null);
+
+        assertEquals("application/cbor", response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow());
+        assertEquals(post.getTitle(), CBORMapper.builder().build().readValue(response.body(), Post.class).getTitle());
+    }
+
+    @Test
+    public void getPosts_GzipsLargePages() throws Exception {
+        HttpResponse<byte[]> plain = get("/api/v1/posts", "application/json", null);
+        HttpResponse<byte[]> gzipped = get("/api/v1/posts", "application/json", "gzip");
+
+        assertEquals("gzip", gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElseThrow());
+        assertTrue(gzipped.body().length < plain.body().length / 2);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            assertEquals(POSTS, readPosts(JsonMapper.builder().build(), in.readAllBytes()).length);
+        }
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.ACCEPT, accept);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private static Post[] readPosts(ObjectMapper mapper, byte[] body) {
+        return mapper.readValue(body, Post[].class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.tdd.demo.TDD_Spring_Boot.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void requestsOverTheLimitAreShed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 2, Duration.ofMillis(100), now::get);
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire().orElseThrow();
+        limiter.tryAcquire().orElseThrow();
+        assertTrue(limiter.tryAcquire().isEmpty());
+
+        limiter.release(first);
+        assertTrue(limiter.tryAcquire().isPresent());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void slowResponsesShrinkTheLimitOncePerThreshold() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(5, 100, Duration.ofMillis(100), now::get);
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            permits.add(limiter.tryAcquire().orElseThrow());
+        }
+
+        now.addAndGet(Duration.ofMillis(150).toNanos());
+        permits.forEach(limiter::release);
+        assertEquals(90, limiter.getLimit());
+
+        AdaptiveConcurrencyLimiter.Permit slow = limiter.tryAcquire().orElseThrow();
+        now.addAndGet(Duration.ofMillis(150).toNanos());
+        limiter.release(slow);
+        assertEquals(81, limiter.getLimit());
+    }
+
+    @Test
+    public void limitNeverDropsBelowTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 4, Duration.ofMillis(100), now::get);
+        for (int i = 0; i < 10; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire().orElseThrow();
+            now.addAndGet(Duration.ofMillis(150).toNanos());
+            limiter.release(permit);
+        }
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    public void fastResponsesGrowTheLimitOnlyWhileItIsUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10, Duration.ofMillis(100), now::get);
+        AdaptiveConcurrencyLimiter.Permit slow = limiter.tryAcquire().orElseThrow();
+        now.addAndGet(Duration.ofMillis(150).toNanos());
+        limiter.release(slow);
+        assertEquals(9, limiter.getLimit());
+
+        // A lone fast request on a mostly idle route says nothing about the capacity.
+        limiter.release(limiter.tryAcquire().orElseThrow());
+        assertEquals(9, limiter.getLimit());
+
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            permits.add(limiter.tryAcquire().orElseThrow());
+        }
+        permits.forEach(limiter::release);
+        assertEquals(10, limiter.getLimit());
+    }
+}
@@ -0,0 +1,111 @@
+package com.tdd.demo.TDD_Spring_Boot.repository;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostListing;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostListing.Order;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks with H2's {@code EXPLAIN} that every listing is answered from one of the indexes on {@link Post}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class PostListingQueryPlanTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        postRepository.deleteAll();
+        postRepository.saveAll(IntStream.range(0, 500)
+                .mapToObj(i -> new Post(null, (i % 2 == 0 ? "Spring " : "Summer ") + i, "Desc"))
+                .toList());
+        postRepository.flush();
+    }
+
+    @Test
+    public void createdAtOrderScansTheCreatedAtIndexInOrder() {
+        String plan = explain(listing(Order.CREATED_AT, null, null, null, NOW, 7));
+
+        assertTrue(plan.contains("PUBLIC.POSTS_CREATED_AT: CREATED_AT >="), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    public void newestFirstScansTheCreatedAtIndexInOrder() {
+        String plan = explain(listing(Order.CREATED_AT_DESC, null, null, null, NOW, 7));
+
+        assertTrue(plan.contains("PUBLIC.POSTS_CREATED_AT: CREATED_AT <="), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    public void createdRangeIsAnIndexRangeScan() {
+        String plan = explain(listing(Order.CREATED_AT, NOW.minusSeconds(60), NOW, null, null, 0));
+
+        assertTrue(plan.contains("PUBLIC.POSTS_CREATED_AT: CREATED_AT >= ?1"), plan);
+        assertTrue(plan.contains("AND CREATED_AT < ?2"), plan);
+    }
+
+    @Test
+    public void titlePrefixIsAnIndexRangeScanInOrder() {
+        String plan = explain(listing(Order.TITLE, null, null, "Spring 1", null, 0));
+
+        assertTrue(plan.contains("PUBLIC.POSTS_TITLE: TITLE >= ?1"), plan);
+        assertTrue(plan.contains("AND TITLE < ?2"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    public void listingsReturnTheMatchingPostsInOrder() {
+        List<Post> page = postRepository.findPage(listing(Order.TITLE, null, null, "Spring 1", null, 0));
+        assertEquals(List.of("Spring 10", "Spring 100", "Spring 102"), page.stream().limit(3).map(Post::getTitle).toList());
+        assertTrue(page.stream().allMatch(post -> post.getTitle().startsWith("Spring 1")));
+
+        List<Post> next = postRepository.findPage(new PostListing(Order.TITLE, null, null, "Spring 1", null,
+                page.getLast().getTitle(), page.getLast().getId(), 20));
+        assertTrue(next.getFirst().getTitle().compareTo(page.getLast().getTitle()) > 0);
+
+        List<Post> newest = postRepository.findPage(new PostListing(Order.CREATED_AT_DESC, null, null, null, null, null, 0, 500));
+        for (int i = 1; i < newest.size(); i++) {
+            Post previous = newest.get(i - 1);
+            Post post = newest.get(i);
+            assertTrue(previous.getCreatedAt().isAfter(post.getCreatedAt())
+                    || previous.getCreatedAt().equals(post.getCreatedAt()) && previous.getId() > post.getId());
+        }
+    }
+
+    private static PostListing listing(Order order, Instant createdFrom, Instant createdTo, String titlePrefix,
+                                       Instant afterCreatedAt, int afterId) {
+        return new PostListing(order, createdFrom, createdTo, titlePrefix, afterCreatedAt, null, afterId, 20);
+    }
+
+    private String explain(PostListing listing) {
+        PostListingQuery query = PostListingQuery.of(listing, PostListingQuery.POST_COLUMNS);
+        Map<String, Object> parameters = query.parameters().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue() instanceof Instant instant
+                        ? instant.atOffset(ZoneOffset.UTC) : entry.getValue()));
+        return jdbcTemplate.queryForObject("explain " + query.sql(), parameters, String.class);
+    }
+}
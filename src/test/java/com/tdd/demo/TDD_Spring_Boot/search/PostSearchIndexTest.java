@@ -0,0 +1,100 @@
+package com.tdd.demo.TDD_Spring_Boot.search;
+
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostSearchIndexTest {
+
+    private static final Instant UPDATED = Instant.parse("2024-03-01T10:15:30.123456Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void commitsEveryFewChangesWithTheLatestUpdate() throws Exception {
+        PostSearchIndex index = new PostSearchIndex(directory.toString(), 2);
+        try {
+            index.index(post(1, UPDATED.plusSeconds(5)));
+            assertEquals(Map.of(), committedUserData());
+
+            index.index(post(2, UPDATED));
+            try (Directory fsDirectory = FSDirectory.open(directory);
+                 DirectoryReader reader = DirectoryReader.open(fsDirectory)) {
+                assertEquals(2, reader.numDocs());
+                assertEquals(UPDATED.plusSeconds(5).toString(), reader.getIndexCommit().getUserData().get("indexedUpTo"));
+            }
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void latestUpdateSurvivesRestart() throws Exception {
+        PostSearchIndex index = new PostSearchIndex(directory.toString(), 1000);
+        index.index(post(1, UPDATED));
+        index.close();
+
+        index = new PostSearchIndex(directory.toString(), 1000);
+        try {
+            assertEquals(1, index.count());
+            assertEquals(UPDATED, index.indexedUpTo());
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void rebuildReplacesTheIndexWithoutEmptyingItFirst() throws Exception {
+        PostSearchIndex index = new PostSearchIndex(directory.toString(), 1000);
+        try {
+            index.index(post(1, UPDATED));
+            index.index(post(2, UPDATED));
+            index.commit();
+
+            index.rebuild(consumer -> {
+                consumer.accept(post(2, UPDATED.plusSeconds(5)));
+                index.commit();
+                // Halfway through, the posts still to be written again are found as before.
+                assertEquals(List.of(1, 2), sortedHits(index));
+                consumer.accept(post(3, UPDATED));
+            });
+
+            assertEquals(List.of(2, 3), sortedHits(index));
+            assertEquals(UPDATED.plusSeconds(5), index.indexedUpTo());
+        } finally {
+            index.close();
+        }
+    }
+
+    private static List<Integer> sortedHits(PostSearchIndex index) {
+        return index.search("spring", 0, 10).ids().stream().sorted().toList();
+    }
+
+    private Map<String, String> committedUserData() throws Exception {
+        try (Directory fsDirectory = FSDirectory.open(directory)) {
+            if (!DirectoryReader.indexExists(fsDirectory)) {
+                return Map.of();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(fsDirectory)) {
+                return reader.getIndexCommit().getUserData();
+            }
+        }
+    }
+
+    private static Post post(int id, Instant updatedAt) {
+        Post post = new Post(id, "Post " + id, "Spring Boot TDD");
+        post.setUpdatedAt(updatedAt);
+        return post;
+    }
+}
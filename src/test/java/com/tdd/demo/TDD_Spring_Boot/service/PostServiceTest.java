@@ -1,17 +1,30 @@
 package com.tdd.demo.TDD_Spring_Boot.service;
 
+import com.tdd.demo.TDD_Spring_Boot.datasource.ReplicaDataSource;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostVersion;
+import com.tdd.demo.TDD_Spring_Boot.dto.PostsById;
+import com.tdd.demo.TDD_Spring_Boot.exception.PostVersionConflictException;
 import com.tdd.demo.TDD_Spring_Boot.model.Post;
 import com.tdd.demo.TDD_Spring_Boot.repository.PostRepository;
+import com.tdd.demo.TDD_Spring_Boot.snapshot.PostSnapshots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.mockito.Spy;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static com.tdd.demo.TDD_Spring_Boot.config.CacheConfig.POSTS_CACHE;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -21,7 +34,18 @@ public class PostServiceTest {
     @Mock
     private PostRepository postRepository;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private SingleFlight<Integer, Optional<Post>> postLookups =
+            new SingleFlight<>("posts.lookups", Duration.ofSeconds(1), new SimpleMeterRegistry());
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager(POSTS_CACHE);
+
+    @Mock
+    private PostSnapshots postSnapshots;
+
     private PostService postService;
 
     List<Post> posts = new ArrayList<>();
@@ -29,6 +53,7 @@ public class PostServiceTest {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.initMocks(this);
+        postService = new PostService(postRepository, eventPublisher, postLookups, cacheManager, 2, postSnapshots);
         posts = List.of(new Post(1, "First Post", "Spring Boot TDD"), new Post(2, "Second Post", "Mastering TDD"));
     }
 
@@ -42,6 +67,16 @@ public class PostServiceTest {
         assertEquals(posts.size(), 2);
     }
 
+    @Test
+    public void findPostsAfterCursor() {
+        when(postRepository.findByIdGreaterThanOrderByIdAsc(1, Limit.of(10))).thenReturn(List.of(posts.get(1)));
+
+        List<Post> page = postService.getPosts(1, 10);
+
+        assertEquals(1, page.size());
+        assertEquals(2, page.get(0).getId());
+    }
+
     @Test
     public void findPostById() {
         when(postRepository.findById(1)).thenReturn(Optional.of(posts.get(0)));
@@ -49,6 +84,43 @@ public class PostServiceTest {
         assertNotNull(post);
     }
 
+    @Test
+    public void findPostById_CachedSkipsLookup() {
+        cacheManager.getCache(POSTS_CACHE).put(1, posts.get(0));
+        cacheManager.getCache(POSTS_CACHE).put(8, null);
+
+        assertEquals(posts.get(0), postService.getPostById(1));
+        assertThrows(RuntimeException.class, () -> postService.getPostById(8));
+
+        verify(postLookups, never()).load(any(), any());
+        verify(postRepository, never()).findById(any());
+    }
+
+    @Test
+    public void findPostById_PinnedToPrimaryIsNotCoalesced() {
+        when(postRepository.findById(1)).thenReturn(Optional.of(posts.get(0)));
+
+        try (ReplicaDataSource.Pin ignored = ReplicaDataSource.pinToPrimary()) {
+            assertEquals(posts.get(0), postService.getPostById(1));
+        }
+
+        verify(postLookups, never()).load(any(), any());
+        verify(postRepository).findById(1);
+    }
+
+    @Test
+    public void findPostVersion_FromCacheOrProjection() {
+        Post cachedPost = new Post(1, "First Post", "Spring Boot TDD");
+        cachedPost.setVersion(3L);
+        cacheManager.getCache(POSTS_CACHE).put(1, cachedPost);
+        when(postRepository.findVersionById(2)).thenReturn(Optional.of(new PostVersion(5, null)));
+
+        assertEquals(3, postService.getPostVersion(1).version());
+        assertEquals(5, postService.getPostVersion(2).version());
+
+        verify(postRepository, never()).findVersionById(1);
+    }
+
     @Test
     void findPostById_NotFound() {
         int id = 999;
@@ -59,6 +131,22 @@ public class PostServiceTest {
                 assertThrows(RuntimeException.class, () -> postService.getPostById(id));
 
         assertEquals("Post with id 999 not found!", ex.getMessage());
+        assertEquals(0, ex.getStackTrace().length);
+    }
+
+    @Test
+    public void findPostsByIds_InRequestedOrderWithMissingIds() {
+        cacheManager.getCache(POSTS_CACHE).put(2, posts.get(1));
+        cacheManager.getCache(POSTS_CACHE).put(8, null);
+        when(postRepository.findAllById(List.of(9, 1))).thenReturn(List.of(posts.get(0)));
+        when(postRepository.findAllById(List.of(7))).thenReturn(List.of());
+
+        PostsById<Post> found = postService.getPostsByIds(List.of(2, 9, 1, 8, 2, 7));
+
+        assertEquals(List.of(2, 1), found.posts().stream().map(Post::getId).toList());
+        assertEquals(List.of(9, 8, 7), found.missing());
+        verify(postRepository, times(2)).findAllById(any());
+        verify(postRepository, never()).findById(any());
     }
 
     @Test
@@ -67,56 +155,55 @@ public class PostServiceTest {
         Post post = postService.savePost(new Post(1, "First Post", "Spring Boot TDD"));
         assertNotNull(post);
         assertEquals( "First Post", post.getTitle());
+        verify(eventPublisher).publishEvent(PostChangedEvent.updated(posts.get(0)));
     }
 
     @Test
     void deletePost() {
         int postId = 1;
-        Post post = posts.get(0);
-        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(postRepository.deletePostById(postId)).thenReturn(1);
         postService.deletePost(postId);
-        verify(postRepository, times(1)).findById(postId);
-        verify(postRepository, times(1)).delete(post);
+        verify(postRepository, times(1)).deletePostById(postId);
+        verify(postRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(PostChangedEvent.deleted(postId));
     }
 
     @Test
     void deletePost_NotFound() {
         int id = 999;
 
-        when(postRepository.findById(id)).thenReturn(Optional.empty());
+        when(postRepository.deletePostById(id)).thenReturn(0);
 
         RuntimeException ex =
                 assertThrows(RuntimeException.class, () -> postService.deletePost(id));
 
         assertEquals("Post with id 999 not found!", ex.getMessage());
-
-        verify(postRepository, never()).delete(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void updatePost() {
         int id = 1;
 
-        Post existingPost = new Post(1, "Old Title", "Old Description");
         Post updateRequest = new Post(1, "New Title", "New Description");
 
-        when(postRepository.findById(id)).thenReturn(Optional.of(existingPost));
-        when(postRepository.save(existingPost)).thenReturn(existingPost);
+        when(postRepository.updateReturning(id, "New Title", "New Description", null))
+                .thenReturn(Optional.of(new Post(1, "New Title", "New Description")));
 
         Post result = postService.updatePost(id, updateRequest);
-        assertEquals("New Title", existingPost.getTitle());
-        assertEquals("New Description", existingPost.getDescription());
+        assertEquals(1, result.getId());
+        assertEquals("New Title", result.getTitle());
+        assertEquals("New Description", result.getDescription());
 
-        verify(postRepository).save(existingPost);
-
-        assertEquals(existingPost, result);
+        verify(postRepository, never()).findById(any());
+        verify(postRepository, never()).save(any());
     }
 
     @Test
     void updatePost_NotFound() {
         int id = 999;
 
-        when(postRepository.findById(id)).thenReturn(Optional.empty());
+        when(postRepository.updateReturning(eq(id), any(), any(), isNull())).thenReturn(Optional.empty());
 
         RuntimeException ex =
                 assertThrows(RuntimeException.class,
@@ -127,4 +214,19 @@ public class PostServiceTest {
         verify(postRepository, never()).save(any());
     }
 
+    @Test
+    void updatePost_StaleVersion() {
+        int id = 1;
+
+        when(postRepository.updateReturning(id, "New Title", "New Description", 3L)).thenReturn(Optional.empty());
+        when(postRepository.findVersionById(id)).thenReturn(Optional.of(new PostVersion(4, Instant.now())));
+
+        PostVersionConflictException ex =
+                assertThrows(PostVersionConflictException.class,
+                        () -> postService.updatePost(id, new Post(null, "New Title", "New Description"), 3L));
+
+        assertEquals("Post with id 1 is at version 4, not 3!", ex.getMessage());
+        verifyNoInteractions(eventPublisher);
+    }
+
 }
@@ -0,0 +1,135 @@
+package com.tdd.demo.TDD_Spring_Boot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentLoadsOfOneKeyShareOneCall() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(10), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(executor.submit(() -> singleFlight.load(1, () -> {
+                calls.incrementAndGet();
+                await(release);
+                return "post 1";
+            })));
+        }
+        awaitCount("coalesced", 19);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("post 1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, count("loaded"));
+        assertEquals(0, meterRegistry.get("test.in.flight").gauge().value());
+    }
+
+    @Test
+    public void waitersGetTheLeadersException() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(10), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(1, () -> {
+            await(release);
+            throw failure;
+        }));
+        awaitInFlight(1);
+        Future<String> waiter = executor.submit(() -> singleFlight.load(1, () -> "not called"));
+        awaitCount("coalesced", 1);
+        release.countDown();
+
+        assertSame(failure, assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals("loaded again", singleFlight.load(1, () -> "loaded again"));
+    }
+
+    @Test
+    public void oneWaiterTakesOverAfterMaxWait() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofMillis(200), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch releaseTakeover = new CountDownLatch(1);
+        AtomicInteger takeovers = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(1, () -> {
+            await(release);
+            return "slow";
+        }));
+        awaitInFlight(1);
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            waiters.add(executor.submit(() -> singleFlight.load(1, () -> {
+                takeovers.incrementAndGet();
+                await(releaseTakeover);
+                return "taken over";
+            })));
+        }
+        awaitCount("timed_out", 5);
+        releaseTakeover.countDown();
+
+        for (Future<String> waiter : waiters) {
+            assertEquals("taken over", waiter.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, takeovers.get());
+        assertEquals(2, count("loaded"));
+        release.countDown();
+        assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("test.calls").tag("result", result).counter().count();
+    }
+
+    private void awaitCount(String result, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (count(result) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, count(result));
+    }
+
+    private void awaitInFlight(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("test.in.flight").gauge().value() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, meterRegistry.get("test.in.flight").gauge().value());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.tdd.demo.TDD_Spring_Boot.snapshot;
+
+import com.tdd.demo.TDD_Spring_Boot.dto.PostSummary;
+import com.tdd.demo.TDD_Spring_Boot.model.Post;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostSnapshotTest {
+
+    private static final Instant CREATED = Instant.parse("2024-03-01T10:15:30.123456Z");
+
+    private final ObjectWriter jsonWriter = JsonMapper.builder().build().writerFor(Post.class);
+
+    @TempDir
+    private Path directory;
+
+    private Path file;
+    private List<Post> posts;
+
+    @BeforeEach
+    public void setUp() {
+        file = directory.resolve("posts.snapshot");
+        posts = List.of(post(1, "First Post", "Spring Boot TDD"), post(3, "Größe", null), post(7, null, "x".repeat(20_000)));
+    }
+
+    @Test
+    public void findsPostsByIdWithAllTheirFields() {
+        PostSnapshot.write(file, posts::forEach, jsonWriter);
+        PostSnapshot snapshot = PostSnapshot.open(file);
+
+        assertEquals(3, snapshot.size());
+        Post found = snapshot.find(3);
+        assertEquals("Größe", found.getTitle());
+        assertNull(found.getDescription());
+        assertEquals(3L, found.getVersion());
+        assertEquals(CREATED, found.getCreatedAt());
+        assertEquals(CREATED.plus(3, ChronoUnit.MINUTES), found.getUpdatedAt());
+        assertEquals(20_000, snapshot.find(7).getDescription().length());
+        assertNull(snapshot.find(2));
+        assertNull(snapshot.find(8));
+        assertEquals(7L, snapshot.version(7).version());
+        assertEquals(List.of(1, 3, 7), snapshot.posts().stream().map(Post::getId).toList());
+    }
+
+    @Test
+    public void pagesThroughPostsAfterAnId() {
+        PostSnapshot.write(file, posts::forEach, jsonWriter);
+        PostSnapshot snapshot = PostSnapshot.open(file);
+
+        assertEquals(List.of(1, 3), snapshot.postsAfter(0, 2).stream().map(Post::getId).toList());
+        assertEquals(List.of(3, 7), snapshot.postsAfter(1, 5).stream().map(Post::getId).toList());
+        assertEquals(List.of(7), snapshot.postsAfter(4, 5).stream().map(Post::getId).toList());
+        assertEquals(List.of(), snapshot.postsAfter(7, 5));
+
+        List<PostSummary> summaries = snapshot.summariesAfter(2, 1);
+        assertEquals(List.of(new PostSummary(3, "Größe", 3L, CREATED, CREATED.plus(3, ChronoUnit.MINUTES))), summaries);
+    }
+
+    @Test
+    public void storesTheJsonTheApiRenders() throws Exception {
+        PostSnapshot.write(file, posts::forEach, jsonWriter);
+        PostSnapshot snapshot = PostSnapshot.open(file);
+
+        PostSnapshot.Json json = snapshot.json(1);
+        assertArrayEquals(jsonWriter.writeValueAsBytes(posts.get(0)), json.body());
+        assertEquals(1L, json.version());
+        assertEquals(posts.get(0).getUpdatedAt(), json.updatedAt());
+        assertNull(snapshot.json(2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeJsonLines(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(jsonWriter.writeValueAsString(posts.get(2)), lines[2]);
+    }
+
+    @Test
+    public void emptySnapshot() {
+        PostSnapshot.write(file, consumer -> {}, jsonWriter);
+        PostSnapshot snapshot = PostSnapshot.open(file);
+
+        assertEquals(0, snapshot.size());
+        assertNull(snapshot.find(1));
+    }
+
+    @Test
+    public void refusesPostsOutOfIdOrder() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PostSnapshot.write(file, List.of(posts.get(1), posts.get(0))::forEach, jsonWriter));
+    }
+
+    private static Post post(int id, String title, String description) {
+        Post post = new Post(id, title, description);
+        post.setVersion((long) id);
+        post.setCreatedAt(CREATED);
+        post.setUpdatedAt(CREATED.plus(id, ChronoUnit.MINUTES));
+        return post;
+    }
+}